@@ -0,0 +1,32 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Fen;
+
+/**
+ * The positions the benchmarks are parameterized over
+ */
+public final class Positions {
+
+    public static final String OPENING = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3";
+    public static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    public static final String PROMOTION = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1";
+
+    private Positions() {
+    }
+
+    /**
+     * @param name one of opening, middlegame, endgame or promotion
+     * @return a new game set up at that position
+     */
+    public static ChessGame load(String name) {
+        return Fen.parse(switch (name) {
+            case "opening" -> OPENING;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            case "promotion" -> PROMOTION;
+            default -> throw new IllegalArgumentException("Unknown position: " + name);
+        });
+    }
+}
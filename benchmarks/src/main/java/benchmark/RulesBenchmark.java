@@ -0,0 +1,84 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rules engine calls the server makes for every move: move validation,
+ * check and checkmate detection, raw piece moves, and board equality and hashing.
+ * <p>
+ * Run with {@code -prof gc} to also report bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"opening", "middlegame", "endgame", "promotion"})
+    public String position;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private ChessBoard boardCopy;
+    private ChessPosition[] ownPieces;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(position);
+        board = game.getBoard();
+        boardCopy = new ChessBoard(board);
+
+        List<ChessPosition> positions = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    positions.add(new ChessPosition(row, col));
+                }
+            }
+        }
+        ownPieces = positions.toArray(new ChessPosition[0]);
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition position : ownPieces) {
+            blackhole.consume(game.validMoves(position));
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (ChessPosition position : ownPieces) {
+            blackhole.consume(board.getPiece(position).pieceMoves(board, position));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean boardEquals() {
+        return board.equals(boardCopy);
+    }
+
+    @Benchmark
+    public int boardHashCode() {
+        return board.hashCode();
+    }
+}
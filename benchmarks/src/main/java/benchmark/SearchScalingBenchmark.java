@@ -0,0 +1,66 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the parallel search scales with threads: how many fixed depth searches
+ * finish per second, starting from an empty table each time, and the positions
+ * visited per second by all threads together (reported as the {@code nodes} counter).
+ * <p>
+ * Pick the thread counts to compare with e.g. {@code -p threads=1,2,4,8,16,32}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SearchScalingBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"middlegame"})
+    public String position;
+
+    @Param({"7"})
+    public int depth;
+
+    private ParallelSearch search;
+    private ChessGame game;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        search = new ParallelSearch(threads, 64);
+        game = Positions.load(position);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public int searchToDepth(Counters counters) {
+        SearchResult result = search.search(game, SearchLimits.depth(depth));
+        counters.nodes += result.getNodes();
+        return result.getBestMove();
+    }
+}
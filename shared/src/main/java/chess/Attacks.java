@@ -0,0 +1,287 @@
+package chess;
+
+/**
+ * Precomputed attack tables.
+ * <p>
+ * Knights, kings and pawn pushes and captures have one fixed target set per square.
+ * Sliding pieces use magic bitboards: the blockers on a piece's rays are multiplied
+ * by a per-square magic number and shifted down to an index into a shared table,
+ * so an attack set costs one multiply, one shift and one load. The magics below were
+ * found ahead of time by a seeded random search; the tables are filled once when the
+ * class is initialized and never written after that, so they can be shared freely
+ * between threads.
+ */
+public final class Attacks {
+
+    private static final int[][] KNIGHT_OFFSETS =
+            {{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+    private static final int[][] KING_OFFSETS =
+            {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, 1}, {-1, -1}, {1, -1}};
+    private static final int[][] WHITE_PAWN_OFFSETS = {{1, -1}, {1, 1}};
+    private static final int[][] BLACK_PAWN_OFFSETS = {{-1, -1}, {-1, 1}};
+    private static final int[][] WHITE_PUSH_OFFSETS = {{1, 0}};
+    private static final int[][] BLACK_PUSH_OFFSETS = {{-1, 0}};
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] PAWN_PUSH = new long[2][64];
+    private static final long[][] PAWN_DOUBLE_PUSH = new long[2][64];
+
+    // For each pair of squares on a shared rank, file or diagonal: the squares strictly
+    // between them, and the whole line through them
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, 1}, {-1, -1}, {1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0x0A80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+            0xC200209084020008L, 0x2100010004000208L, 0x0400081000822421L, 0x0200010422048844L,
+            0x0800800080400024L, 0x0001402000401000L, 0x3000801000802001L, 0x4400800800100083L,
+            0x0904802402480080L, 0x4040800400020080L, 0x0018808042000100L, 0x4040800080004100L,
+            0x0040048001458024L, 0x00A0004000205000L, 0x3100808010002000L, 0x4825010010000820L,
+            0x5004808008000401L, 0x2024818004000A00L, 0x0005808002000100L, 0x2100060004806104L,
+            0x0080400880008421L, 0x4062220600410280L, 0x010A004A00108022L, 0x0000100080080080L,
+            0x0021000500080010L, 0x0044000202001008L, 0x0000100400080102L, 0xC020128200040545L,
+            0x0080002000400040L, 0x0000804000802004L, 0x0000120022004080L, 0x010A386103001001L,
+            0x9010080080800400L, 0x8440020080800400L, 0x0004228824001001L, 0x000000490A000084L,
+            0x0080002000504000L, 0x200020005000C000L, 0x0012088020420010L, 0x0010010080080800L,
+            0x0085001008010004L, 0x0002000204008080L, 0x0040413002040008L, 0x0000304081020004L,
+            0x0080204000800080L, 0x3008804000290100L, 0x1010100080200080L, 0x2008100208028080L,
+            0x5000850800910100L, 0x8402019004680200L, 0x0120911028020400L, 0x0000008044010200L,
+            0x0020850200244012L, 0x0020850200244012L, 0x0000102001040841L, 0x140900040A100021L,
+            0x000200282410A102L, 0x000200282410A102L, 0x000200282410A102L, 0x4048240043802106L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x40106000A1160020L, 0x0020010250810120L, 0x2010010220280081L, 0x002806004050C040L,
+            0x0002021018000000L, 0x2001112010000400L, 0x0881010120218080L, 0x1030820110010500L,
+            0x0000120222042400L, 0x2000020404040044L, 0x8000480094208000L, 0x0003422A02000001L,
+            0x000A220210100040L, 0x8004820202226000L, 0x0018234854100800L, 0x0100004042101040L,
+            0x0004001004082820L, 0x0010000810010048L, 0x1014004208081300L, 0x2080818802044202L,
+            0x0040880C00A00100L, 0x0080400200522010L, 0x0001000188180B04L, 0x0080249202020204L,
+            0x1004400004100410L, 0x00013100A0022206L, 0x2148500001040080L, 0x4241080011004300L,
+            0x4020848004002000L, 0x10101380D1004100L, 0x0008004422020284L, 0x01010A1041008080L,
+            0x0808080400082121L, 0x0808080400082121L, 0x0091128200100C00L, 0x0202200802010104L,
+            0x8C0A020200440085L, 0x01A0008080B10040L, 0x0889520080122800L, 0x100902022202010AL,
+            0x04081A0816002000L, 0x0000681208005000L, 0x8170840041008802L, 0x0A00004200810805L,
+            0x0830404408210100L, 0x2602208106006102L, 0x1048300680802628L, 0x2602208106006102L,
+            0x0602010120110040L, 0x0941010801043000L, 0x000040440A210428L, 0x0008240020880021L,
+            0x0400002012048200L, 0x00AC102001210220L, 0x0220021002009900L, 0x84440C080A013080L,
+            0x0001008044200440L, 0x0004C04410841000L, 0x2000500104011130L, 0x1A0C010011C20229L,
+            0x0044800112202200L, 0x0434804908100424L, 0x0300404822C08200L, 0x48081010008A2A80L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = leaperTargets(square, KNIGHT_OFFSETS);
+            KING[square] = leaperTargets(square, KING_OFFSETS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = leaperTargets(square, WHITE_PAWN_OFFSETS);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = leaperTargets(square, BLACK_PAWN_OFFSETS);
+            PAWN_PUSH[ChessGame.TeamColor.WHITE.ordinal()][square] = leaperTargets(square, WHITE_PUSH_OFFSETS);
+            PAWN_PUSH[ChessGame.TeamColor.BLACK.ordinal()][square] = leaperTargets(square, BLACK_PUSH_OFFSETS);
+            if (Bitboard.row(square) == 2) {
+                PAWN_DOUBLE_PUSH[ChessGame.TeamColor.WHITE.ordinal()][square] = Bitboard.bit(square + 16);
+            } else if (Bitboard.row(square) == 7) {
+                PAWN_DOUBLE_PUSH[ChessGame.TeamColor.BLACK.ordinal()][square] = Bitboard.bit(square - 16);
+            }
+        }
+        ROOK_TABLE = initTable(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initTable(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long bits = Bitboard.bit(a) | Bitboard.bit(b);
+                if (a == b) {
+                    continue;
+                }
+                if ((rook(a, 0) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a][b] = rook(a, bits) & rook(b, bits);
+                    LINE[a][b] = (rook(a, 0) & rook(b, 0)) | bits;
+                } else if ((bishop(a, 0) & Bitboard.bit(b)) != 0) {
+                    BETWEEN[a][b] = bishop(a, bits) & bishop(b, bits);
+                    LINE[a][b] = (bishop(a, 0) & bishop(b, 0)) | bits;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return the squares a knight on the given square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return the squares a king on the given square attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @param color  the team the pawn belongs to
+     * @param square the square the pawn stands on
+     * @return the squares the pawn could capture onto
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @param color  the team the pawn belongs to
+     * @param square the square the pawn stands on
+     * @return the square one step forward, or 0 if the pawn is on its last row
+     */
+    public static long pawnPush(ChessGame.TeamColor color, int square) {
+        return PAWN_PUSH[color.ordinal()][square];
+    }
+
+    /**
+     * @param color  the team the pawn belongs to
+     * @param square the square the pawn stands on
+     * @return the square two steps forward if the pawn is on its start row, otherwise 0
+     */
+    public static long pawnDoublePush(ChessGame.TeamColor color, int square) {
+        return PAWN_DOUBLE_PUSH[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file or
+     * diagonal, or 0 if they do not share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every square on the rank, file or diagonal through two squares
+     * (including both), or 0 if they do not share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * @param square   the square the rook stands on
+     * @param occupied every occupied square on the board
+     * @return the squares a rook attacks, including the first blocker on each ray
+     */
+    public static long rook(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * @param square   the square the bishop stands on
+     * @param occupied every occupied square on the board
+     * @return the squares a bishop attacks, including the first blocker on each ray
+     */
+    public static long bishop(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * @param square   the square the queen stands on
+     * @param occupied every occupied square on the board
+     * @return the squares a queen attacks, including the first blocker on each ray
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    private static long leaperTargets(int square, int[][] offsets) {
+        long targets = 0;
+        for (int[] offset : offsets) {
+            int row = Bitboard.row(square) + offset[0];
+            int col = Bitboard.column(square) + offset[1];
+            if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                targets |= Bitboard.bit(Bitboard.square(row, col));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Fills in every square's slice of the attack table
+     *
+     * @return the attack table shared by all squares
+     */
+    private static long[] initTable(int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                     int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantOccupancy(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            // Enumerate every subset of the mask (carry-rippler)
+            long subset = 0;
+            do {
+                int index = (int) ((subset * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = slidingAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    /**
+     * @return the squares whose occupancy can change the attack set, which excludes the
+     * board edge at the end of each ray
+     */
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] dir : directions) {
+            int row = Bitboard.row(square) + dir[0];
+            int col = Bitboard.column(square) + dir[1];
+            while (row + dir[0] >= 1 && row + dir[0] <= 8 && col + dir[1] >= 1 && col + dir[1] <= 8) {
+                mask |= Bitboard.bit(Bitboard.square(row, col));
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Walks each ray one square at a time; only used to build the tables
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] dir : directions) {
+            int row = Bitboard.row(square) + dir[0];
+            int col = Bitboard.column(square) + dir[1];
+            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+                long bit = Bitboard.bit(Bitboard.square(row, col));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,61 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square sets.
+ * <p>
+ * Squares are numbered 0..63 with bit 0 being row 1, column 1 and bit 63 being
+ * row 8, column 8, so {@code square = (row - 1) * 8 + (column - 1)}.
+ */
+public final class Bitboard {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+    public static final long DARK_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private Bitboard() {
+    }
+
+    /**
+     * @return the square index for a 1-based row and column
+     */
+    public static int square(int row, int column) {
+        return ((row - 1) << 3) | (column - 1);
+    }
+
+    /**
+     * @return the square index of the given position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return a bitboard with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the lowest set square of a non-empty bitboard
+     */
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+}
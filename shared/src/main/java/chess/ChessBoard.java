@@ -1,6 +1,5 @@
 package chess;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -11,8 +10,57 @@ import java.util.Objects;
 public class ChessBoard {
 
     ChessPiece[][] squares = new ChessPiece[8][8];
+
+    // One bitboard per color and piece type, kept in sync with squares (see Bitboard for the layout)
+    final long[] pieces = new long[12];
+    final long[] colors = new long[2];
+    long occupied;
+
+    // Square of each team's king, or -1 if it has none
+    final int[] kingSquares = {-1, -1};
+
+    // Zobrist key of the pieces on the board, and of just the pawns, see Zobrist
+    long key;
+    long pawnKey;
+
+    // Material and piece-square totals (WHITE minus BLACK) and game phase, see PieceSquareTables
+    int midgame;
+    int endgame;
+    int phase;
+
+    // Piece values for exchanges, by piece type ordinal, and the order to recapture in
+    private static final int[] SEE_VALUES = {20000, 900, 330, 320, 500, 100};
+    private static final ChessPiece.PieceType[] CHEAPEST_FIRST = {
+            ChessPiece.PieceType.PAWN,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.KING
+    };
+
     public ChessBoard() {
-        
+
+    }
+
+    /**
+     * Creates an independent copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        for (int row = 0; row < 8; row++) {
+            squares[row] = other.squares[row].clone();
+        }
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        System.arraycopy(other.kingSquares, 0, kingSquares, 0, kingSquares.length);
+        occupied = other.occupied;
+        key = other.key;
+        pawnKey = other.pawnKey;
+        midgame = other.midgame;
+        endgame = other.endgame;
+        phase = other.phase;
     }
 
     /**
@@ -22,7 +70,57 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        setPiece(Bitboard.square(position), piece);
+    }
+
+    /**
+     * Places a piece by square index, keeping the bitboards in sync
+     *
+     * @param square the square index, see {@link Bitboard}
+     * @param piece  the piece to place, or null to empty the square
+     * @return the piece that was on the square before, or null
+     */
+    ChessPiece setPiece(int square, ChessPiece piece) {
+        long bit = Bitboard.bit(square);
+
+        ChessPiece old = squares[square >>> 3][square & 7];
+        if (old != null) {
+            pieces[old.index] &= ~bit;
+            colors[old.getTeamColor().ordinal()] &= ~bit;
+            occupied &= ~bit;
+            key ^= Zobrist.piece(old, square);
+            if (old.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawnKey ^= Zobrist.piece(old, square);
+            }
+            midgame -= PieceSquareTables.midgame(old, square);
+            endgame -= PieceSquareTables.endgame(old, square);
+            phase -= PieceSquareTables.phase(old);
+            if (old.getPieceType() == ChessPiece.PieceType.KING) {
+                int color = old.getTeamColor().ordinal();
+                long kings = pieces[old.index];
+                if (kingSquares[color] == square) {
+                    kingSquares[color] = (kings == 0) ? -1 : Bitboard.first(kings);
+                }
+            }
+        }
+
+        squares[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            pieces[piece.index] |= bit;
+            colors[piece.getTeamColor().ordinal()] |= bit;
+            occupied |= bit;
+            key ^= Zobrist.piece(piece, square);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawnKey ^= Zobrist.piece(piece, square);
+            }
+            midgame += PieceSquareTables.midgame(piece, square);
+            endgame += PieceSquareTables.endgame(piece, square);
+            phase += PieceSquareTables.phase(piece);
+            if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                kingSquares[piece.getTeamColor().ordinal()] = square;
+            }
+        }
+        return old;
     }
 
     /**
@@ -36,12 +134,269 @@ public class ChessBoard {
         return squares[position.getRow()-1][position.getColumn()-1];
     }
 
+    /**
+     * Gets a chess piece by square index without building a ChessPosition
+     *
+     * @param square the square index, see {@link Bitboard}
+     * @return Either the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color and type
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[ChessPiece.index(color, type)];
+    }
+
+    /**
+     * @return the set of squares holding pieces of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return the set of squares holding any piece
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of just the pawns on the board, so results that depend
+     * only on the pawn structure can be cached. It is 0 when there are no pawns.
+     */
+    public long pawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Gets the material and piece-square score of the board, blended between its
+     * middlegame and endgame values by the material left (see {@link PieceSquareTables}).
+     * It is kept up to date as pieces are added, so it costs nothing to read.
+     *
+     * @return the score in centipawns, positive when WHITE is ahead
+     */
+    public int getMaterialScore() {
+        return PieceSquareTables.taper(midgame, endgame, phase);
+    }
+
+    /**
+     * @return the game phase, from {@link PieceSquareTables#MAX_PHASE} with all pieces on
+     * the board down to 0 with only kings and pawns
+     */
+    public int getPhase() {
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, kept up to date as pieces are
+     * added so it costs nothing to read. ChessGame#zobristKey() adds the rest of the
+     * game state.
+     */
+    public long zobristKey() {
+        return key;
+    }
+
+    /**
+     * @return the square of the given team's king, or -1 if it has none on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square. Probes outward from the
+     * square with each piece's attack pattern and stops at the first attacker found.
+     *
+     * @param square the square index, see {@link Bitboard}
+     * @param by     the attacking team
+     * @return True if a piece of that team could capture on the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor by) {
+        int base = by.ordinal() * 6;
+        ChessGame.TeamColor other = (by == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+
+        // A pawn attacks this square if it stands where a pawn of the other team here could capture
+        if ((Attacks.pawn(other, square) & pieces[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Attacks.knight(square) & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Attacks.king(square) & pieces[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        if ((Attacks.bishop(square, occupied) & (pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens)) != 0) {
+            return true;
+        }
+        return (Attacks.rook(square, occupied) & (pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens)) != 0;
+    }
+
+    /**
+     * Finds every piece, of either team, that attacks a square
+     *
+     * @param square   the square index, see {@link Bitboard}
+     * @param occupied the occupancy to use for blocking sliding pieces, normally
+     *                 {@link #getOccupied()}
+     * @return the set of squares holding pieces that attack the square
+     */
+    public long attackersTo(int square, long occupied) {
+        int white = 0;
+        int black = 6;
+        long queens = pieces[white + ChessPiece.PieceType.QUEEN.ordinal()]
+                | pieces[black + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonal = queens | pieces[white + ChessPiece.PieceType.BISHOP.ordinal()]
+                | pieces[black + ChessPiece.PieceType.BISHOP.ordinal()];
+        long orthogonal = queens | pieces[white + ChessPiece.PieceType.ROOK.ordinal()]
+                | pieces[black + ChessPiece.PieceType.ROOK.ordinal()];
+        long knights = pieces[white + ChessPiece.PieceType.KNIGHT.ordinal()]
+                | pieces[black + ChessPiece.PieceType.KNIGHT.ordinal()];
+        long kings = pieces[white + ChessPiece.PieceType.KING.ordinal()]
+                | pieces[black + ChessPiece.PieceType.KING.ordinal()];
+
+        return (Attacks.pawn(ChessGame.TeamColor.BLACK, square) & pieces[white + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.pawn(ChessGame.TeamColor.WHITE, square) & pieces[black + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.knight(square) & knights)
+                | (Attacks.king(square) & kings)
+                | (Attacks.bishop(square, occupied) & diagonal)
+                | (Attacks.rook(square, occupied) & orthogonal);
+    }
+
+    /**
+     * Works out the material a move wins or loses once every capture that follows on its
+     * destination square has been played out ("static exchange evaluation"). Each side
+     * recaptures with its least valuable attacker and may stop when going on would lose
+     * material. Sliding pieces lined up behind a piece that captures join in as it leaves.
+     * Pins and checks elsewhere on the board are not considered, and a pawn that
+     * recaptures on the last rank is counted as a pawn.
+     * <p>
+     * Nothing is allocated, so this is cheap enough to call for every capture in a search.
+     *
+     * @param move a move for the piece on its from square, see {@link Move}
+     * @return the centipawns the moving team gains, negative if it loses material
+     */
+    public int see(int move) {
+        if (Move.is(move, Move.CASTLE)) {
+            return 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece mover = getPiece(from);
+        ChessGame.TeamColor side = mover.getTeamColor();
+
+        ChessPiece victim = getPiece(to);
+        long occupancy = occupied ^ Bitboard.bit(from);
+        int balance = 0;
+        if (Move.is(move, Move.EN_PASSANT)) {
+            occupancy ^= Bitboard.bit(MoveGenerator.capturedSquare(side, to));
+            balance = SEE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        } else if (victim != null) {
+            balance = SEE_VALUES[victim.getPieceType().ordinal()];
+        }
+        int onSquare = SEE_VALUES[mover.getPieceType().ordinal()];
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            onSquare = SEE_VALUES[promotion.ordinal()];
+            balance += onSquare - SEE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        }
+
+        // Walk down the exchange keeping the best result each side can already get by
+        // stopping: the mover can keep at least alpha and the opponent can hold it to beta
+        int alpha = -Integer.MAX_VALUE;
+        int beta = Integer.MAX_VALUE;
+        boolean moverToPlay = false;
+        long attackers = attackersTo(to, occupancy) & occupancy;
+        while (true) {
+            if (moverToPlay) {
+                alpha = Math.max(alpha, balance);
+            } else {
+                beta = Math.min(beta, balance);
+            }
+            if (alpha >= beta) {
+                // The side to play would not get this far, so the earlier stop stands
+                return moverToPlay ? beta : alpha;
+            }
+
+            int color = (moverToPlay ? side.ordinal() : 1 - side.ordinal());
+            long own = attackers & colors[color];
+            int type = leastValuable(own, color);
+            if (type < 0 || (type == ChessPiece.PieceType.KING.ordinal() && (attackers & ~own) != 0)) {
+                // No capture left, or only the king, which may not take a defended piece
+                return moverToPlay ? alpha : beta;
+            }
+
+            occupancy ^= Bitboard.bit(Bitboard.first(own & pieces[color * 6 + type]));
+            balance += moverToPlay ? onSquare : -onSquare;
+            onSquare = SEE_VALUES[type];
+            attackers = attackersTo(to, occupancy) & occupancy;
+            moverToPlay = !moverToPlay;
+        }
+    }
+
+    /**
+     * Finds the pieces of a team that the other team could capture and come out ahead
+     * after the exchange on that square is played out (see {@link #see(int)}). This does
+     * not check whose turn it is, so it suits hints like "your knight is hanging".
+     *
+     * @param color the team whose pieces to check
+     * @return the set of squares holding that team's hanging pieces
+     */
+    public long hangingPieces(ChessGame.TeamColor color) {
+        int enemy = 1 - color.ordinal();
+        long hanging = 0L;
+        long targets = colors[color.ordinal()] & ~pieces[color.ordinal() * 6 + ChessPiece.PieceType.KING.ordinal()];
+        while (targets != 0) {
+            int square = Bitboard.first(targets);
+            targets &= targets - 1;
+            long attackers = attackersTo(square, occupied) & colors[enemy];
+            int type = leastValuable(attackers, enemy);
+            if (type < 0) {
+                continue;
+            }
+            int from = Bitboard.first(attackers & pieces[enemy * 6 + type]);
+            if (see(Move.of(from, square, null, Move.CAPTURE)) > 0) {
+                hanging |= Bitboard.bit(square);
+            }
+        }
+        return hanging;
+    }
+
+    // Piece type ordinal of the cheapest piece of a team in a set, or -1 if there is none
+    private int leastValuable(long set, int color) {
+        if (set == 0) {
+            return -1;
+        }
+        for (ChessPiece.PieceType type : CHEAPEST_FIRST) {
+            if ((set & pieces[color * 6 + type.ordinal()]) != 0) {
+                return type.ordinal();
+            }
+        }
+        return -1;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
         squares = new ChessPiece[8][8];
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        occupied = 0L;
+        Arrays.fill(kingSquares, -1);
+        key = 0L;
+        pawnKey = 0L;
+        midgame = 0;
+        endgame = 0;
+        phase = 0;
+
         ChessPiece.PieceType[] otherPieces = {
                 ChessPiece.PieceType.ROOK,
                 ChessPiece.PieceType.KNIGHT,
@@ -69,12 +424,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        // The bitboards describe every square, so comparing them is the same as comparing squares
+        return key == that.key && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(key);
     }
 }
 
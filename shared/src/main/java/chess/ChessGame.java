@@ -1,5 +1,7 @@
 package chess;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -10,13 +12,107 @@ import java.util.Collection;
  */
 public class ChessGame {
 
+    // Castling rights, one bit per team and side of the board
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    private static final int ALL_CASTLING = 15;
+
+    // A game is drawn once 100 plies pass without a capture or pawn move, so no earlier
+    // position can repeat and the history only needs to hold that many keys
+    private static final int FIFTY_MOVE_PLIES = 100;
+    private static final int HISTORY_SIZE = 128;
+
+    // The castling rights that survive a move starting or ending on each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[Bitboard.square(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Bitboard.square(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Bitboard.square(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Bitboard.square(8, 1)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[Bitboard.square(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[Bitboard.square(8, 8)] &= ~BLACK_KINGSIDE;
+    }
+
     private TeamColor teamTurn = TeamColor.WHITE;
     private ChessBoard board;
 
+    private int castlingRights;
+    private int enPassantSquare = -1;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
+    // One packed record per move made, see doMove
+    private long[] undoStack = new long[128];
+    private int undoSize;
+
+    // Ring buffer of the position key before each ply, indexed by ply & (HISTORY_SIZE - 1)
+    private final long[] keyHistory = new long[HISTORY_SIZE];
+    private int ply;
+
+    private final MoveList moveBuffer = new MoveList();
+
+    // Status of the team to move, cached for the position whose zobristKey() is statusKey
+    // reached at statusPly
+    private GameStatus status;
+    private long statusKey;
+    private int statusPly;
+
+    // The position as of the last public change, for threads that only read the game, or
+    // null until it is first asked for
+    private volatile GameSnapshot snapshot;
+
     public ChessGame() {
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.teamTurn = TeamColor.WHITE;
+        resetState();
+    }
+
+    /**
+     * Creates an independent copy of another game's current position and state. The
+     * copy keeps the history needed to spot repetitions but starts with no moves to undo.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.teamTurn = other.teamTurn;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        System.arraycopy(other.keyHistory, 0, keyHistory, 0, HISTORY_SIZE);
+        this.ply = other.ply;
+        this.status = other.status;
+        this.statusKey = other.statusKey;
+        this.statusPly = other.statusPly;
+    }
+
+    /**
+     * Starts a game with the given board and team to move, for loading positions. The
+     * caller sets the rest of the state with {@link #setState}.
+     */
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+        resetState();
+    }
+
+    /**
+     * Starts a game from a snapshot. The snapshot has no move history, so the new game
+     * works out its own status, which is never a repetition at first.
+     */
+    ChessGame(GameSnapshot snapshot) {
+        this.board = snapshot.getBoard();
+        this.teamTurn = snapshot.getTeamTurn();
+        this.castlingRights = snapshot.getCastlingRights();
+        this.enPassantSquare = snapshot.getEnPassantSquare();
+        this.halfmoveClock = snapshot.getHalfmoveClock();
+        this.fullmoveNumber = snapshot.getFullmoveNumber();
     }
 
     /**
@@ -34,6 +130,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        publish();
     }
 
     /**
@@ -58,26 +155,33 @@ public class ChessGame {
             return null;
         }
 
-        Collection<ChessMove> pieceMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> legalMoves = new java.util.ArrayList<>();
-
-        for (ChessMove move : pieceMoves) {
-            ChessPiece originalStart = board.getPiece(move.getStartPosition());
-            ChessPiece originalEnd = board.getPiece(move.getEndPosition());
-
-            board.addPiece(move.getEndPosition(), originalStart);
-            board.addPiece(move.getStartPosition(), null);
-
-            if (!isInCheck(piece.getTeamColor())) {
-                legalMoves.add(move);
-            }
-
-            board.addPiece(move.getStartPosition(), originalStart);
-            board.addPiece(move.getEndPosition(), originalEnd);
-        }
+        TeamColor color = piece.getTeamColor();
+        moveBuffer.clear();
+        MoveGenerator.generateLegal(board, color, Bitboard.bit(Bitboard.square(startPosition)), castlingRights,
+                (color == teamTurn) ? enPassantSquare : -1, moveBuffer);
+        return moveBuffer.toChessMoves(0);
+    }
 
-        return legalMoves;
+    /**
+     * Gets every legal move for the team whose turn it is
+     *
+     * @return the legal moves, empty if the team is checkmated or stalemated
+     */
+    public Collection<ChessMove> legalMoves() {
+        moveBuffer.clear();
+        MoveGenerator.generateLegal(board, teamTurn, castlingRights, enPassantSquare, moveBuffer);
+        return moveBuffer.toChessMoves(0);
+    }
 
+    /**
+     * Adds every legal move for the team whose turn it is to a caller-owned list
+     * without allocating
+     *
+     * @param moves the list to append encoded moves to
+     * @return the number of moves added
+     */
+    public int legalMoves(MoveList moves) {
+        return MoveGenerator.generateLegal(board, teamTurn, castlingRights, enPassantSquare, moves);
     }
 
     /**
@@ -93,68 +197,296 @@ public class ChessGame {
             throw new InvalidMoveException();
         }
 
-        Collection<ChessMove> legalMoves = validMoves(move.getStartPosition());
-        if (legalMoves == null || !legalMoves.contains(move)) {
-            throw new InvalidMoveException();
+        moveBuffer.clear();
+        MoveGenerator.generateLegal(board, teamTurn, Bitboard.bit(Bitboard.square(move.getStartPosition())),
+                castlingRights, enPassantSquare, moveBuffer);
+        for (int i = 0; i < moveBuffer.size(); i++) {
+            if (Move.matches(moveBuffer.get(i), move)) {
+                doMove(moveBuffer.get(i));
+                publish();
+                return;
+            }
+        }
+        throw new InvalidMoveException();
+    }
+
+    /**
+     * Finds the encoded form of a move, including its flags
+     *
+     * @param move the move to look up
+     * @return the encoded move, or {@link Move#NONE} if the piece cannot make that move
+     * (ignoring whether it leaves the king in danger)
+     */
+    public int encodeMove(ChessMove move) {
+        moveBuffer.clear();
+        MoveGenerator.generate(board, Bitboard.square(move.getStartPosition()), castlingRights, enPassantSquare,
+                moveBuffer);
+        for (int i = 0; i < moveBuffer.size(); i++) {
+            if (Move.matches(moveBuffer.get(i), move)) {
+                return moveBuffer.get(i);
+            }
         }
+        return Move.NONE;
+    }
 
-        ChessPiece pieceToPlace = (move.getPromotionPiece() != null)
-                ? new ChessPiece(teamTurn, move.getPromotionPiece())
-                : piece;
+    /**
+     * Plays an encoded move without checking that it is legal, and records what is
+     * needed to take it back with {@link #undoMove()}. The move must come from the
+     * move generator for the current board.
+     * <p>
+     * This is meant for searching ahead, so it does not publish a new {@link #snapshot()}.
+     *
+     * @param move the encoded move to play
+     */
+    public void doMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPiece(from);
+        int capturedSquare = Move.is(move, Move.EN_PASSANT)
+                ? MoveGenerator.capturedSquare(piece.getTeamColor(), to)
+                : to;
+        ChessPiece captured = board.getPiece(capturedSquare);
+
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+        }
+        keyHistory[ply++ & (HISTORY_SIZE - 1)] = zobristKey();
+        undoStack[undoSize++] = (move & 0xFFFFFL)
+                | (long) (captured == null ? 0 : captured.index + 1) << 20
+                | (long) castlingRights << 24
+                | (long) (enPassantSquare + 1) << 28
+                | (long) halfmoveClock << 35;
+
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        board.setPiece(from, null);
+        if (capturedSquare != to) {
+            board.setPiece(capturedSquare, null);
+        }
+        board.setPiece(to, (promotion == null)
+                ? piece
+                : ChessPiece.of(ChessPiece.index(piece.getTeamColor(), promotion)));
+        if (Move.is(move, Move.CASTLE)) {
+            moveCastlingRook(to, false);
+        }
 
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(move.getEndPosition(), pieceToPlace);
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = -1;
+        if (Move.is(move, Move.DOUBLE_PUSH) && canCaptureEnPassant(to, piece.getTeamColor())) {
+            enPassantSquare = (from + to) >>> 1;
+        }
 
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        boolean pawnMove = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = (pawnMove || captured != null) ? 0 : halfmoveClock + 1;
+        if (piece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = opponent(teamTurn);
+    }
 
+    /**
+     * Takes back the last move played with {@link #doMove(int)} or
+     * {@link #makeMove(ChessMove)}, restoring the board and game state. Like doMove,
+     * it does not publish a new {@link #snapshot()}.
+     */
+    public void undoMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        long record = undoStack[--undoSize];
+        ply--;
+        int move = (int) (record & 0xFFFFF);
+        int captured = (int) (record >>> 20) & 0xF;
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPiece(to);
+        if (Move.promotion(move) != null) {
+            piece = ChessPiece.of(ChessPiece.index(piece.getTeamColor(), ChessPiece.PieceType.PAWN));
+        }
+        if (Move.is(move, Move.CASTLE)) {
+            moveCastlingRook(to, true);
+        }
+        ChessPiece restored = (captured == 0) ? null : ChessPiece.of(captured - 1);
+        if (Move.is(move, Move.EN_PASSANT)) {
+            board.setPiece(to, null);
+            board.setPiece(MoveGenerator.capturedSquare(piece.getTeamColor(), to), restored);
+        } else {
+            board.setPiece(to, restored);
+        }
+        board.setPiece(from, piece);
 
+        castlingRights = (int) (record >>> 24) & 0xF;
+        enPassantSquare = (int) ((record >>> 28) & 0x7F) - 1;
+        halfmoveClock = (int) (record >>> 35) & 0xFFFF;
+        if (piece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        teamTurn = opponent(teamTurn);
     }
 
     /**
-     * Determines if the given team is in check
+     * Moves the rook that goes with a castling king move, or puts it back
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param kingTo the king's square after castling
+     * @param undo   true to move the rook back to its corner
      */
-    public boolean isInCheck(TeamColor teamColor) {
-            ChessPosition kingPosition = null;
-
-            for (int r = 1; r <= 8; r++) {
-                for (int c = 1; c <= 8; c++) {
-                    ChessPosition pos = new ChessPosition(r, c);
-                    ChessPiece piece = board.getPiece(pos);
-                    if (piece != null &&
-                            piece.getPieceType() == ChessPiece.PieceType.KING &&
-                            piece.getTeamColor() == teamColor) {
-                        kingPosition = pos;
-                        break;
-                    }
-                }
-            }
+    private void moveCastlingRook(int kingTo, boolean undo) {
+        boolean kingside = (kingTo & 7) == 6;
+        int corner = kingside ? kingTo + 1 : kingTo - 2;
+        int castled = kingside ? kingTo - 1 : kingTo + 1;
+        int from = undo ? castled : corner;
+        int to = undo ? corner : castled;
+        board.setPiece(to, board.setPiece(from, null));
+    }
+
+    /**
+     * Gets the Zobrist key of the current position: the pieces, the team to move, the
+     * castling rights and the en passant file. Equal positions have equal keys, so the
+     * key can be used to look positions up in caches.
+     *
+     * @return the 64-bit position key
+     */
+    public long zobristKey() {
+        return board.zobristKey()
+                ^ Zobrist.side(teamTurn)
+                ^ Zobrist.castling(castlingRights)
+                ^ Zobrist.enPassant(enPassantSquare);
+    }
+
+    /**
+     * Gets an immutable copy of the position, safe to read from any thread while
+     * another thread plays moves. A new snapshot is published by makeMove, setBoard
+     * and setTeamTurn; changes made with doMove/undoMove or directly on the board
+     * returned by {@link #getBoard()} are not seen until the next of those calls.
+     * <p>
+     * A new or copied game takes its first snapshot when it is first asked for, so
+     * games that are only searched never pay for one. Ask for it once before other
+     * threads start reading a game that is also searched with doMove.
+     *
+     * @return the position as of the last published change
+     */
+    public GameSnapshot snapshot() {
+        GameSnapshot current = snapshot;
+        if (current == null) {
+            current = new GameSnapshot(this);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Captures the current position as the game's snapshot
+     */
+    private void publish() {
+        snapshot = new GameSnapshot(this);
+    }
 
-            if (kingPosition == null) return false;
+    /**
+     * @return how many moves can currently be taken back with {@link #undoMove()}
+     */
+    public int getUndoDepth() {
+        return undoSize;
+    }
 
-            TeamColor opponentColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    /**
+     * @return the castling rights still available, as WHITE_KINGSIDE etc. or'ed together
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
 
-            for (int r = 1; r <= 8; r++) {
-                for (int c = 1; c <= 8; c++) {
-                    ChessPosition pos = new ChessPosition(r, c);
-                    ChessPiece piece = board.getPiece(pos);
+    /**
+     * @return the square a pawn can capture onto en passant, or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
 
-                    if (piece != null && piece.getTeamColor() == opponentColor) {
-                        Collection<ChessMove> enemyMoves = piece.pieceMoves(board, pos);
+    /**
+     * @return the number of moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
 
-                        for (ChessMove move : enemyMoves) {
-                            if (move.getEndPosition().equals(kingPosition)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
+    /**
+     * @return the move number, starting at 1 and increasing after each BLACK move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Overrides the state that cannot be seen on the board, e.g. when loading a position
+     * from FEN. The en passant square is dropped if no pawn could capture onto it.
+     */
+    void setState(int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = -1;
+        if (enPassantSquare >= 0) {
+            int pushed = (teamTurn == TeamColor.WHITE) ? enPassantSquare - 8 : enPassantSquare + 8;
+            if (canCaptureEnPassant(pushed, opponent(teamTurn))) {
+                this.enPassantSquare = enPassantSquare;
             }
+        }
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        status = null;
+        snapshot = null;
+    }
 
-            return false;
+    /**
+     * @return true if a pawn of the other team stands beside the square a pawn just
+     * double moved to
+     */
+    private boolean canCaptureEnPassant(int square, TeamColor mover) {
+        long enemyPawns = board.getBitboard(opponent(mover), ChessPiece.PieceType.PAWN);
+        long bit = Bitboard.bit(square);
+        long beside = ((bit << 1) & ~Bitboard.FILE_A) | ((bit >>> 1) & ~Bitboard.FILE_H);
+        return (enemyPawns & beside) != 0;
+    }
+
+    /**
+     * Clears the move history and infers castling rights from where the kings and rooks stand
+     */
+    private void resetState() {
+        castlingRights = 0;
+        if (hasPiece(1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            castlingRights |= hasPiece(1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_KINGSIDE : 0;
+            castlingRights |= hasPiece(1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_QUEENSIDE : 0;
+        }
+        if (hasPiece(8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            castlingRights |= hasPiece(8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_KINGSIDE : 0;
+            castlingRights |= hasPiece(8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_QUEENSIDE : 0;
+        }
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        undoSize = 0;
+        ply = 0;
+        status = null;
+    }
+
+    private boolean hasPiece(int row, int column, TeamColor color, ChessPiece.PieceType type) {
+        return (board.getBitboard(color, type) & Bitboard.bit(Bitboard.square(row, column))) != 0;
+    }
+
+    private static TeamColor opponent(TeamColor color) {
+        return (color == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
 
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        int kingSquare = board.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
+        }
+        return board.isSquareAttacked(kingSquare, opponent(teamColor));
     }
 
     /**
@@ -164,27 +496,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
+        if (teamColor == teamTurn) {
+            return getStatus() == GameStatus.CHECKMATE;
         }
-
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> possibleMoves = validMoves(pos);
-                    if (possibleMoves != null && !possibleMoves.isEmpty()) {
-                        return false;
-                    }
-                }
-
-            }
-        }
-
-        return true;
-
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
     /**
@@ -195,29 +510,88 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
+        if (teamColor == teamTurn) {
+            return getStatus() == GameStatus.STALEMATE;
         }
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
+    }
 
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-
-                    Collection<ChessMove> possibleMoves = validMoves(pos);
-                    if (possibleMoves != null && !possibleMoves.isEmpty()) {
-                        return false;
-                    }
-
-                }
+    /**
+     * Gets whether the team to move is in check, checkmate or stalemate, or the game
+     * is drawn by repetition, the fifty-move rule or insufficient material. The answer
+     * is worked out once per position and cached until the board, turn or move history
+     * changes, so asking repeatedly (e.g. for every message sent about the game) is cheap.
+     *
+     * @return the status of the team whose turn it is
+     */
+    public GameStatus getStatus() {
+        long key = zobristKey();
+        if (status == null || key != statusKey || ply != statusPly) {
+            boolean check = isInCheck(teamTurn);
+            if (!hasLegalMove(teamTurn)) {
+                status = check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+            } else if (hasInsufficientMaterial()) {
+                status = GameStatus.INSUFFICIENT_MATERIAL;
+            } else if (halfmoveClock >= FIFTY_MOVE_PLIES) {
+                status = GameStatus.FIFTY_MOVES;
+            } else if (repetitions() >= 3) {
+                status = GameStatus.REPETITION;
+            } else {
+                status = check ? GameStatus.CHECK : GameStatus.ONGOING;
+            }
+            statusKey = key;
+            statusPly = ply;
+        }
+        return status;
+    }
 
+    /**
+     * Counts how many times the current position has occurred, including now. Only
+     * positions since the last capture or pawn move can match, so at most
+     * {@link #FIFTY_MOVE_PLIES} / 2 keys are compared.
+     *
+     * @return the number of occurrences, at least 1
+     */
+    public int repetitions() {
+        long key = zobristKey();
+        int limit = Math.min(Math.min(halfmoveClock, ply), HISTORY_SIZE);
+        int count = 1;
+        for (int back = 2; back <= limit; back += 2) {
+            if (keyHistory[(ply - back) & (HISTORY_SIZE - 1)] == key) {
+                count++;
             }
         }
+        return count;
+    }
 
-        return true;
+    /**
+     * @return true if neither team can possibly checkmate: only kings remain, plus at
+     * most one knight or bishop, or bishops that all stand on the same color of square
+     */
+    private boolean hasInsufficientMaterial() {
+        long heavy = 0;
+        for (TeamColor color : TeamColor.values()) {
+            heavy |= board.getBitboard(color, ChessPiece.PieceType.PAWN)
+                    | board.getBitboard(color, ChessPiece.PieceType.ROOK)
+                    | board.getBitboard(color, ChessPiece.PieceType.QUEEN);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        long bishops = board.getBitboard(TeamColor.WHITE, ChessPiece.PieceType.BISHOP)
+                | board.getBitboard(TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        long knights = board.getBitboard(TeamColor.WHITE, ChessPiece.PieceType.KNIGHT)
+                | board.getBitboard(TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        if (Long.bitCount(bishops | knights) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboard.DARK_SQUARES) == 0 || (bishops & ~Bitboard.DARK_SQUARES) == 0);
+    }
 
+    private boolean hasLegalMove(TeamColor teamColor) {
+        moveBuffer.clear();
+        return MoveGenerator.generateLegal(board, teamColor, castlingRights,
+                (teamColor == teamTurn) ? enPassantSquare : -1, moveBuffer) > 0;
     }
 
     /**
@@ -227,6 +601,8 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        resetState();
+        publish();
     }
 
     /**
@@ -250,8 +626,8 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        // Generate a hash based on the turn and the board
-        return java.util.Objects.hash(teamTurn, board);
+        // Generate a hash based on the turn and the board, matching what equals compares
+        return Long.hashCode(board.zobristKey() ^ Zobrist.side(teamTurn));
     }
 
 
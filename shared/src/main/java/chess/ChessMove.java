@@ -10,15 +10,40 @@ import java.util.Objects;
  */
 public class ChessMove {
 
+    // Shared instances by start square, end square and promotion, filled in on first use.
+    // Moves are immutable, so a race between two threads filling the same slot is harmless.
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * 7];
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
+    private final int hash;
 
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
         this.endPosition = endPosition;
         this.promotionPiece = promotionPiece;
+        this.hash = 31 * (31 * Objects.hashCode(startPosition) + Objects.hashCode(endPosition))
+                + ((promotionPiece == null) ? 0 : promotionPiece.ordinal() + 1);
+    }
+
+    /**
+     * Gets a shared move instead of allocating a new one
+     *
+     * @param from           start square, see {@link Bitboard}
+     * @param to             end square
+     * @param promotionPiece piece to promote to, or null
+     * @return the shared move
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int index = ((from << 6) | to) * 7 + ((promotionPiece == null) ? 0 : promotionPiece.ordinal() + 1);
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            move = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotionPiece);
+            MOVES[index] = move;
+        }
+        return move;
     }
 
     /**
@@ -54,6 +79,9 @@ public class ChessMove {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -63,6 +91,6 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        return hash;
     }
 }
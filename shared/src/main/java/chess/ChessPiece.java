@@ -1,6 +1,7 @@
 package chess;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -12,10 +13,26 @@ public class ChessPiece {
 
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
+    final int index;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
+        this.index = index(pieceColor, type);
+    }
+
+    /**
+     * @return the bitboard slot (0..11) used by {@link ChessBoard} for a color and type
+     */
+    static int index(ChessGame.TeamColor color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return a shared instance for the given bitboard slot, see {@link #index}
+     */
+    static ChessPiece of(int index) {
+        return Shared.PIECES[index];
     }
 
     /**
@@ -54,81 +71,22 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        if (getPieceType() == PieceType.PAWN) {
-            return getPawnMoves(board, myPosition, this);
-        }
-
-        Rule rule = switch (getPieceType()) {
-            case BISHOP -> new Rule(true, new int[][]{{1, 1}, {-1, 1}, {-1, -1}, {1, -1}});
-            case ROOK -> new Rule(true, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}});
-            case KNIGHT ->
-                    new Rule(false, new int[][]{{2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}, {2, -1}});
-            case QUEEN ->
-                    new Rule(true, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, 1}, {-1, -1}, {1, -1}});
-            case KING ->
-                    new Rule(false, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, 1}, {-1, -1}, {1, -1}});
-            default -> null;
-        };
-
-        if (rule != null) {
-            return rule.getMoves(board, myPosition, this);
-        }
-        return List.of();
+        MoveList moves = new MoveList(32);
+        MoveGenerator.generate(board, Bitboard.square(myPosition), this, moves);
+        return moves.toChessMoves(0);
     }
 
-
-    private Collection<ChessMove> getPawnMoves(ChessBoard board, ChessPosition pos, ChessPiece pawn) {
-        Set<ChessMove> moves = new HashSet<>();
-
-        int direction = (pawn.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        int startRow = (pawn.getTeamColor() == ChessGame.TeamColor.WHITE) ? 2 : 7;
-        int promoteRow = (pawn.getTeamColor() == ChessGame.TeamColor.WHITE) ? 8 : 1;
-
-        int row = pos.getRow();
-        int col = pos.getColumn();
-
-        // Forward 1
-        ChessPosition oneForward = new ChessPosition(row + direction, col);
-        if (board.getPiece(oneForward) == null) {
-            addPawnMove(moves, pos, oneForward, promoteRow);
-
-            // Forward 2 (only from start row)
-            if (row == startRow) {
-                ChessPosition twoForward = new ChessPosition(row + 2 * direction, col);
-                if (board.getPiece(twoForward) == null) {
-                    moves.add(new ChessMove(pos, twoForward, null));
-                }
-            }
-        }
-
-        // Capture diagonally: left and right
-        for (int dx : new int[]{-1, 1}) {
-            int newCol = col + dx;
-            if (newCol < 1 || newCol > 8) continue;
-
-            ChessPosition diagPos = new ChessPosition(row + direction, newCol);
-            ChessPiece target = board.getPiece(diagPos);
-            if (target != null && target.getTeamColor() != pawn.getTeamColor()) {
-                addPawnMove(moves, pos, diagPos, promoteRow);
-            }
-        }
-
-        return moves;
-    }
-
-    private void addPawnMove(Set<ChessMove> moves, ChessPosition from, ChessPosition to, int promoteRow) {
-        if (to.getRow() == promoteRow) {
-            for (ChessPiece.PieceType promo : List.of(
-                    ChessPiece.PieceType.QUEEN,
-                    ChessPiece.PieceType.ROOK,
-                    ChessPiece.PieceType.BISHOP,
-                    ChessPiece.PieceType.KNIGHT
-            )) {
-                moves.add(new ChessMove(from, to, promo));
-            }
-        } else {
-            moves.add(new ChessMove(from, to, null));
-        }
+    /**
+     * Calculates all the moves this piece can make without allocating, by appending
+     * encoded moves (see {@link Move}) to a caller-owned list
+     *
+     * @param board  the board the piece is on
+     * @param square the square the piece is on, see {@link Bitboard}
+     * @param moves  the list to append to
+     * @return the number of moves added
+     */
+    public int pieceMoves(ChessBoard board, int square, MoveList moves) {
+        return MoveGenerator.generate(board, square, this, moves);
     }
 
     @Override
@@ -144,6 +102,20 @@ public class ChessPiece {
     public int hashCode() {
         return Objects.hash(pieceColor, type);
     }
-}
 
+    /**
+     * Holds one immutable instance per color and type, so board code can place pieces
+     * without allocating
+     */
+    private static final class Shared {
+        private static final ChessPiece[] PIECES = new ChessPiece[12];
 
+        static {
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                for (PieceType type : PieceType.values()) {
+                    PIECES[index(color, type)] = new ChessPiece(color, type);
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,6 +7,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    // One shared instance per on-board square, indexed as in Bitboard
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboard.row(square), Bitboard.column(square));
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -17,6 +24,28 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets a shared position instead of allocating a new one
+     *
+     * @param row    1-based row
+     * @param col    1-based column
+     * @return the shared position for an on-board square, or a new position otherwise
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[Bitboard.square(row, col)];
+    }
+
+    /**
+     * @param square the square index, see {@link Bitboard}
+     * @return the shared position for the square
+     */
+    public static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -44,6 +73,9 @@ public class ChessPosition {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -53,6 +85,6 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 }
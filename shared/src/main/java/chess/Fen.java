@@ -0,0 +1,184 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_CHARS = "kqbnrp";
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string. The move counters may be left off.
+     *
+     * @param fen the position to load
+     * @return a new game set up at that position
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                if (column != 9 || row == 1) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                row--;
+                column = 1;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 9) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+            } else {
+                int type = PIECE_CHARS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || column > 8) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c)
+                        ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                board.setPiece(Bitboard.square(row, column),
+                        ChessPiece.of(ChessPiece.index(color, ChessPiece.PieceType.values()[type])));
+                column++;
+            }
+        }
+        // Every rank must fill exactly 8 squares, and there must be 8 ranks
+        if (row != 1 || column != 9) {
+            throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+        }
+
+        ChessGame.TeamColor teamTurn = switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        };
+        ChessGame game = new ChessGame(board, teamTurn);
+
+        int castling = 0;
+        for (char c : fields[2].toCharArray()) {
+            castling |= switch (c) {
+                case 'K' -> ChessGame.WHITE_KINGSIDE;
+                case 'Q' -> ChessGame.WHITE_QUEENSIDE;
+                case 'k' -> ChessGame.BLACK_KINGSIDE;
+                case 'q' -> ChessGame.BLACK_QUEENSIDE;
+                case '-' -> 0;
+                default -> throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+            };
+        }
+
+        int enPassant = fields[3].equals("-") ? -1 : parseSquare(fields[3]);
+        int halfmove = (fields.length > 4) ? Integer.parseInt(fields[4]) : 0;
+        int fullmove = (fields.length > 5) ? Integer.parseInt(fields[5]) : 1;
+        game.setState(castling, enPassant, halfmove, fullmove);
+        return game;
+    }
+
+    /**
+     * Writes the current position of a game as FEN
+     *
+     * @param game the game to describe
+     * @return the FEN string
+     */
+    public static String toFen(ChessGame game) {
+        return toFen(game.getBoard(), game.getTeamTurn(), game.getCastlingRights(), game.getEnPassantSquare(),
+                game.getHalfmoveClock(), game.getFullmoveNumber());
+    }
+
+    /**
+     * Writes a snapshot of a game as FEN
+     *
+     * @param snapshot the position to describe
+     * @return the FEN string
+     */
+    public static String toFen(GameSnapshot snapshot) {
+        return toFen(snapshot.board(), snapshot.getTeamTurn(), snapshot.getCastlingRights(),
+                snapshot.getEnPassantSquare(), snapshot.getHalfmoveClock(), snapshot.getFullmoveNumber());
+    }
+
+    private static String toFen(ChessBoard board, ChessGame.TeamColor teamTurn, int castling, int enPassant,
+                                int halfmoveClock, int fullmoveNumber) {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int column = 1; column <= 8; column++) {
+                ChessPiece piece = board.getPiece(Bitboard.square(row, column));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(pieceChar(piece.getTeamColor(), piece.getPieceType()));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(teamTurn == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        if (castling == 0) {
+            fen.append('-');
+        }
+        if ((castling & ChessGame.WHITE_KINGSIDE) != 0) {
+            fen.append('K');
+        }
+        if ((castling & ChessGame.WHITE_QUEENSIDE) != 0) {
+            fen.append('Q');
+        }
+        if ((castling & ChessGame.BLACK_KINGSIDE) != 0) {
+            fen.append('k');
+        }
+        if ((castling & ChessGame.BLACK_QUEENSIDE) != 0) {
+            fen.append('q');
+        }
+
+        fen.append(' ').append(enPassant < 0 ? "-" : squareName(enPassant));
+        fen.append(' ').append(halfmoveClock);
+        fen.append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * @return the name of a square index, e.g. {@code e4}
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    /**
+     * @return the square index of a name such as {@code e4}
+     * @throws IllegalArgumentException if the name is not a square
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h'
+                || name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Not a square: " + name);
+        }
+        return Bitboard.square(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+
+    /**
+     * @return the FEN letter for a piece: upper case for WHITE, lower case for BLACK
+     */
+    public static char pieceChar(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        char c = PIECE_CHARS.charAt(type.ordinal());
+        return (color == ChessGame.TeamColor.WHITE) ? Character.toUpperCase(c) : c;
+    }
+}
@@ -0,0 +1,144 @@
+package chess;
+
+import java.util.Objects;
+
+/**
+ * An immutable copy of a game's position: the board, the team to move, the castling
+ * rights, the en passant square and the move counters.
+ * <p>
+ * ChessGame publishes a new snapshot each time its position changes through
+ * {@link ChessGame#makeMove(ChessMove)}, so other threads (e.g. ones sending the game
+ * to observers) can read a consistent position without locking the game.
+ */
+public final class GameSnapshot {
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor teamTurn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long key;
+    private final GameStatus status;
+
+    GameSnapshot(ChessGame game) {
+        this.board = new ChessBoard(game.getBoard());
+        this.teamTurn = game.getTeamTurn();
+        this.castlingRights = game.getCastlingRights();
+        this.enPassantSquare = game.getEnPassantSquare();
+        this.halfmoveClock = game.getHalfmoveClock();
+        this.fullmoveNumber = game.getFullmoveNumber();
+        this.key = game.zobristKey();
+        this.status = game.getStatus();
+    }
+
+    /**
+     * @param position the square to look at
+     * @return the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return board.getPiece(position);
+    }
+
+    /**
+     * @return a copy of the board, which the caller is free to change
+     */
+    public ChessBoard getBoard() {
+        return new ChessBoard(board);
+    }
+
+    /**
+     * @return which team's turn it is
+     */
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * @return the castling rights still available, as WHITE_KINGSIDE etc. or'ed together
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square a pawn can capture onto en passant, or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the move number, starting at 1 and increasing after each BLACK move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the Zobrist key of the position, see {@link ChessGame#zobristKey()}
+     */
+    public long zobristKey() {
+        return key;
+    }
+
+    /**
+     * @return whether the team to move is in check, checkmate or stalemate
+     */
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Starts a new game from this position, e.g. to analyze it without touching the
+     * game the snapshot came from
+     *
+     * @return a new game with no moves to undo
+     */
+    public ChessGame toGame() {
+        return new ChessGame(this);
+    }
+
+    /**
+     * @return the position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.toFen(this);
+    }
+
+    // The snapshot's own board, for package code that only reads it
+    ChessBoard board() {
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GameSnapshot that = (GameSnapshot) o;
+        return key == that.key
+                && teamTurn == that.teamTurn
+                && castlingRights == that.castlingRights
+                && enPassantSquare == that.enPassantSquare
+                && halfmoveClock == that.halfmoveClock
+                && fullmoveNumber == that.fullmoveNumber
+                && Objects.equals(board, that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+/**
+ * The state of a game from the point of view of the team whose turn it is. When more
+ * than one applies, checkmate and stalemate come first, then the draw rules.
+ */
+public enum GameStatus {
+    /**
+     * The team to move is not in check and has a legal move
+     */
+    ONGOING,
+    /**
+     * The team to move is in check but can get out of it
+     */
+    CHECK,
+    /**
+     * The team to move is in check with no legal move; the other team has won
+     */
+    CHECKMATE,
+    /**
+     * The team to move is not in check but has no legal move; the game is a draw
+     */
+    STALEMATE,
+    /**
+     * The same position has occurred three times with the same team to move; the game is a draw
+     */
+    REPETITION,
+    /**
+     * Fifty moves by each team have passed without a capture or pawn move; the game is a draw
+     */
+    FIFTY_MOVES,
+    /**
+     * Neither team has enough pieces left to checkmate; the game is a draw
+     */
+    INSUFFICIENT_MATERIAL;
+
+    /**
+     * @return true if the game ended without a winner
+     */
+    public boolean isDraw() {
+        return this != ONGOING && this != CHECK && this != CHECKMATE;
+    }
+
+    /**
+     * @return true if no more moves can be played
+     */
+    public boolean isGameOver() {
+        return this == CHECKMATE || isDraw();
+    }
+}
@@ -0,0 +1,101 @@
+package chess;
+
+/**
+ * Packs a chess move into a single {@code int} so move generation does not have to
+ * allocate.
+ * <p>
+ * Layout: bits 0-5 start square, bits 6-11 end square (see {@link Bitboard}),
+ * bits 12-14 promotion piece (0 for none, otherwise {@code PieceType.ordinal() + 1})
+ * and the flag bits above that.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    /**
+     * @param from      start square
+     * @param to        end square
+     * @param promotion piece to promote to, or null
+     * @param flags     any of the flag constants or'ed together
+     * @return the encoded move
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promo = (promotion == null) ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promo << 12) | flags;
+    }
+
+    /**
+     * @return the start square of an encoded move
+     */
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * @return the end square of an encoded move
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the promotion piece of an encoded move, or null if it is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promo = (move >>> 12) & 0x7;
+        return (promo == 0) ? null : TYPES[promo - 1];
+    }
+
+    /**
+     * @return true if every bit of {@code flag} is set on the move
+     */
+    public static boolean is(int move, int flag) {
+        return (move & flag) == flag;
+    }
+
+    /**
+     * Builds the object form of an encoded move
+     *
+     * @param move the encoded move
+     * @return the equivalent ChessMove
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /**
+     * Writes an encoded move in coordinate notation, e.g. {@code e2e4} or {@code e7e8q}
+     *
+     * @param move the encoded move
+     * @return the move as text
+     */
+    public static String toUci(int move) {
+        StringBuilder text = new StringBuilder(5)
+                .append(Fen.squareName(from(move)))
+                .append(Fen.squareName(to(move)));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append(Fen.pieceChar(ChessGame.TeamColor.BLACK, promotion));
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return true if the encoded move has the same squares and promotion as the ChessMove
+     */
+    public static boolean matches(int move, ChessMove chessMove) {
+        return from(move) == Bitboard.square(chessMove.getStartPosition())
+                && to(move) == Bitboard.square(chessMove.getEndPosition())
+                && promotion(move) == chessMove.getPromotionPiece();
+    }
+}
@@ -0,0 +1,396 @@
+package chess;
+
+/**
+ * Generates moves as encoded ints (see {@link Move}) into a caller-owned
+ * {@link MoveList}, so repeated generation allocates nothing.
+ * <p>
+ * {@link #generate} produces pseudo-legal moves: like {@link ChessPiece#pieceMoves},
+ * it does not take into account moves that are illegal due to leaving the king in
+ * danger. {@link #generateLegal} works out the checking and pinned pieces once and
+ * emits only legal moves.
+ * <p>
+ * Castling and en passant depend on the game's history rather than just the board, so
+ * they are only generated by the overloads that take the castling rights and en
+ * passant square (see {@link ChessGame#getCastlingRights()}).
+ */
+public final class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private static final long ALL = -1L;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds the moves of every piece of one team
+     *
+     * @param board the board to generate moves on
+     * @param color the team to generate moves for
+     * @param moves the list to append to
+     * @return the number of moves added
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int start = moves.size();
+        long own = board.getOccupancy(color);
+        while (own != 0) {
+            int from = Bitboard.first(own);
+            own &= own - 1;
+            generate(board, from, moves);
+        }
+        return moves.size() - start;
+    }
+
+    /**
+     * Adds the moves of the piece on one square
+     *
+     * @param board the board to generate moves on
+     * @param from  the square of the piece to move
+     * @param moves the list to append to
+     * @return the number of moves added, 0 if the square is empty
+     */
+    public static int generate(ChessBoard board, int from, MoveList moves) {
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return 0;
+        }
+        return generate(board, from, piece, moves);
+    }
+
+    /**
+     * Adds the moves of the piece on one square, including castling and en passant
+     *
+     * @param board           the board to generate moves on
+     * @param from            the square of the piece to move
+     * @param castlingRights  the castling rights still available, see {@link ChessGame#WHITE_KINGSIDE}
+     * @param enPassantSquare the square a pawn can capture onto en passant, or -1
+     * @param moves           the list to append to
+     * @return the number of moves added, 0 if the square is empty
+     */
+    public static int generate(ChessBoard board, int from, int castlingRights, int enPassantSquare,
+                               MoveList moves) {
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return 0;
+        }
+        int start = moves.size();
+        addPieceMoves(board, from, piece, ALL, moves);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            addCastles(board, from, piece.getTeamColor(), castlingRights, moves);
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN
+                && (enPassantCapturers(board, piece.getTeamColor(), enPassantSquare) & Bitboard.bit(from)) != 0) {
+            moves.add(Move.of(from, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+        }
+        return moves.size() - start;
+    }
+
+    /**
+     * Adds the moves the given piece would have standing on one square
+     */
+    static int generate(ChessBoard board, int from, ChessPiece piece, MoveList moves) {
+        int start = moves.size();
+        addPieceMoves(board, from, piece, ALL, moves);
+        return moves.size() - start;
+    }
+
+    /**
+     * Adds every legal move of one team
+     *
+     * @param board the board to generate moves on
+     * @param color the team to generate moves for
+     * @param moves the list to append to
+     * @return the number of moves added
+     */
+    public static int generateLegal(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        return generateLegal(board, color, ALL, 0, -1, moves);
+    }
+
+    /**
+     * Adds every legal move of one team, including castling and en passant
+     *
+     * @param board           the board to generate moves on
+     * @param color           the team to generate moves for
+     * @param castlingRights  the castling rights still available, see {@link ChessGame#WHITE_KINGSIDE}
+     * @param enPassantSquare the square a pawn can capture onto en passant, or -1
+     * @param moves           the list to append to
+     * @return the number of moves added
+     */
+    public static int generateLegal(ChessBoard board, ChessGame.TeamColor color, int castlingRights,
+                                    int enPassantSquare, MoveList moves) {
+        return generateLegal(board, color, ALL, castlingRights, enPassantSquare, moves);
+    }
+
+    /**
+     * Adds the legal moves of one team's pieces that start on the given squares
+     *
+     * @param board    the board to generate moves on
+     * @param color    the team to generate moves for
+     * @param fromMask the squares whose pieces should be moved
+     * @param moves    the list to append to
+     * @return the number of moves added
+     */
+    public static int generateLegal(ChessBoard board, ChessGame.TeamColor color, long fromMask, MoveList moves) {
+        return generateLegal(board, color, fromMask, 0, -1, moves);
+    }
+
+    /**
+     * Adds the legal moves of one team's pieces that start on the given squares,
+     * including castling and en passant
+     *
+     * @param board           the board to generate moves on
+     * @param color           the team to generate moves for
+     * @param fromMask        the squares whose pieces should be moved
+     * @param castlingRights  the castling rights still available, see {@link ChessGame#WHITE_KINGSIDE}
+     * @param enPassantSquare the square a pawn can capture onto en passant, or -1
+     * @param moves           the list to append to
+     * @return the number of moves added
+     */
+    public static int generateLegal(ChessBoard board, ChessGame.TeamColor color, long fromMask, int castlingRights,
+                                    int enPassantSquare, MoveList moves) {
+        int start = moves.size();
+        int king = board.getKingSquare(color);
+        long own = board.getOccupancy(color);
+
+        // Without a king nothing can be left in danger, so every move is legal
+        if (king < 0) {
+            long pieces = own & fromMask;
+            while (pieces != 0) {
+                int from = Bitboard.first(pieces);
+                pieces &= pieces - 1;
+                addPieceMoves(board, from, board.getPiece(from), ALL, moves);
+            }
+            long capturers = enPassantCapturers(board, color, enPassantSquare) & fromMask;
+            while (capturers != 0) {
+                int from = Bitboard.first(capturers);
+                capturers &= capturers - 1;
+                moves.add(Move.of(from, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+            }
+            return moves.size() - start;
+        }
+
+        ChessGame.TeamColor enemyColor = (color == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        long enemy = board.getOccupancy(enemyColor);
+        long occupied = board.getOccupied();
+
+        // King moves: the destination must not be attacked once the king has left its square
+        if ((fromMask & Bitboard.bit(king)) != 0) {
+            long targets = Attacks.king(king) & ~own;
+            long withoutKing = occupied & ~Bitboard.bit(king);
+            while (targets != 0) {
+                int to = Bitboard.first(targets);
+                long bit = targets & -targets;
+                targets ^= bit;
+                if ((board.attackersTo(to, withoutKing) & enemy) == 0) {
+                    moves.add(Move.of(king, to, null, (occupied & bit) != 0 ? Move.CAPTURE : 0));
+                }
+            }
+        }
+
+        long checkers = board.attackersTo(king, occupied) & enemy;
+        if (checkers == 0 && (fromMask & Bitboard.bit(king)) != 0) {
+            addCastles(board, king, color, castlingRights, moves);
+        }
+        if (Long.bitCount(checkers) > 1) {
+            // Double check: only the king can move
+            return moves.size() - start;
+        }
+
+        // Any other move must capture the checker or block its ray
+        long checkMask = ALL;
+        if (checkers != 0) {
+            int checker = Bitboard.first(checkers);
+            checkMask = checkers | Attacks.between(king, checker);
+        }
+
+        // A piece is pinned if it is the only thing between the king and an enemy slider
+        long pinned = 0;
+        long queens = board.getBitboard(enemyColor, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, 0) & (board.getBitboard(enemyColor, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, 0) & (board.getBitboard(enemyColor, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Bitboard.first(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+
+        long pieces = own & fromMask & ~Bitboard.bit(king);
+        while (pieces != 0) {
+            int from = Bitboard.first(pieces);
+            pieces &= pieces - 1;
+            long allowed = checkMask;
+            if ((pinned & Bitboard.bit(from)) != 0) {
+                allowed &= Attacks.line(king, from);
+            }
+            if (allowed != 0) {
+                addPieceMoves(board, from, board.getPiece(from), allowed, moves);
+            }
+        }
+
+        // En passant removes two pieces from the board at once, which can expose the king
+        // along the rank in a way the pin test misses, so try the capture and look
+        long capturers = enPassantCapturers(board, color, enPassantSquare) & fromMask;
+        while (capturers != 0) {
+            int from = Bitboard.first(capturers);
+            capturers &= capturers - 1;
+            int captured = capturedSquare(color, enPassantSquare);
+            long after = (occupied ^ Bitboard.bit(from) ^ Bitboard.bit(captured)) | Bitboard.bit(enPassantSquare);
+            if ((board.attackersTo(king, after) & enemy & ~Bitboard.bit(captured)) == 0) {
+                moves.add(Move.of(from, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+            }
+        }
+        return moves.size() - start;
+    }
+
+    /**
+     * Finds the pawns of one team that can capture onto the en passant square
+     *
+     * @return a bitboard of the capturing pawns, empty if there is no en passant capture
+     */
+    private static long enPassantCapturers(ChessBoard board, ChessGame.TeamColor color, int enPassantSquare) {
+        if (enPassantSquare < 0) {
+            return 0;
+        }
+        // The square must be empty with an enemy pawn just past it, which also rules out
+        // an en passant square left for the other team
+        int captured = capturedSquare(color, enPassantSquare);
+        ChessGame.TeamColor enemyColor = (color == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        if (captured < 0 || captured > 63
+                || (board.getOccupied() & Bitboard.bit(enPassantSquare)) != 0
+                || (board.getBitboard(enemyColor, ChessPiece.PieceType.PAWN) & Bitboard.bit(captured)) == 0) {
+            return 0;
+        }
+        // The squares a pawn attacks the en passant square from are the squares an enemy
+        // pawn standing on it would attack
+        return Attacks.pawn(enemyColor, enPassantSquare) & board.getBitboard(color, ChessPiece.PieceType.PAWN);
+    }
+
+    /**
+     * @return the square of the pawn taken by an en passant capture onto {@code enPassantSquare}
+     */
+    static int capturedSquare(ChessGame.TeamColor color, int enPassantSquare) {
+        return (color == ChessGame.TeamColor.WHITE) ? enPassantSquare - 8 : enPassantSquare + 8;
+    }
+
+    /**
+     * Adds the castling moves of a king that is not in check. The king and rook must be
+     * on their starting squares with the rights still available, the squares between
+     * them empty, and the squares the king crosses and lands on not attacked.
+     */
+    private static void addCastles(ChessBoard board, int king, ChessGame.TeamColor color, int castlingRights,
+                                   MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int home = white ? Bitboard.square(1, 5) : Bitboard.square(8, 5);
+        int kingside = white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE;
+        int queenside = white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE;
+        if (king != home || (castlingRights & (kingside | queenside)) == 0) {
+            return;
+        }
+
+        ChessGame.TeamColor enemyColor = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (board.isSquareAttacked(king, enemyColor)) {
+            return;
+        }
+        if ((castlingRights & kingside) != 0) {
+            addCastle(board, color, king, king + 3, king + 2, moves);
+        }
+        if ((castlingRights & queenside) != 0) {
+            addCastle(board, color, king, king - 4, king - 2, moves);
+        }
+    }
+
+    private static void addCastle(ChessBoard board, ChessGame.TeamColor color, int king, int rook, int to,
+                                  MoveList moves) {
+        ChessGame.TeamColor enemyColor = (color == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        if ((board.getBitboard(color, ChessPiece.PieceType.ROOK) & Bitboard.bit(rook)) == 0
+                || (Attacks.between(king, rook) & board.getOccupied()) != 0) {
+            return;
+        }
+        int step = (to > king) ? 1 : -1;
+        if (board.isSquareAttacked(king + step, enemyColor) || board.isSquareAttacked(to, enemyColor)) {
+            return;
+        }
+        moves.add(Move.of(king, to, null, Move.CASTLE));
+    }
+
+    /**
+     * Adds the moves of one piece whose end square is in {@code allowed}
+     */
+    private static void addPieceMoves(ChessBoard board, int from, ChessPiece piece, long allowed, MoveList moves) {
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addPawnMoves(board, from, piece.getTeamColor(), allowed, moves);
+            return;
+        }
+
+        long occupied = board.getOccupied();
+        long targets = switch (piece.getPieceType()) {
+            case KING -> Attacks.king(from);
+            case QUEEN -> Attacks.queen(from, occupied);
+            case BISHOP -> Attacks.bishop(from, occupied);
+            case KNIGHT -> Attacks.knight(from);
+            default -> Attacks.rook(from, occupied);
+        };
+        addMoves(from, targets & ~board.getOccupancy(piece.getTeamColor()) & allowed, occupied, moves);
+    }
+
+    private static void addMoves(int from, long targets, long occupied, MoveList moves) {
+        while (targets != 0) {
+            int to = Bitboard.first(targets);
+            long bit = targets & -targets;
+            targets ^= bit;
+            moves.add(Move.of(from, to, null, (occupied & bit) != 0 ? Move.CAPTURE : 0));
+        }
+    }
+
+    private static void addPawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, long allowed,
+                                     MoveList moves) {
+        long occupied = board.getOccupied();
+        long enemy = board.getOccupancy(color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE);
+
+        // Forward 1, then forward 2 from the start row
+        long push = Attacks.pawnPush(color, from);
+        if (push != 0 && (occupied & push) == 0) {
+            if ((allowed & push) != 0) {
+                addPawnMove(from, Bitboard.first(push), 0, moves);
+            }
+
+            long doublePush = Attacks.pawnDoublePush(color, from);
+            if (doublePush != 0 && (occupied & doublePush) == 0 && (allowed & doublePush) != 0) {
+                moves.add(Move.of(from, Bitboard.first(doublePush), null, Move.DOUBLE_PUSH));
+            }
+        }
+
+        // Capture diagonally: left and right
+        long captures = Attacks.pawn(color, from) & enemy & allowed;
+        while (captures != 0) {
+            int to = Bitboard.first(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, Move.CAPTURE, moves);
+        }
+    }
+
+    private static void addPawnMove(int from, int to, int flags, MoveList moves) {
+        if ((Bitboard.bit(to) & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0) {
+            for (ChessPiece.PieceType promo : PROMOTIONS) {
+                moves.add(Move.of(from, to, promo, flags));
+            }
+        } else {
+            moves.add(Move.of(from, to, null, flags));
+        }
+    }
+}
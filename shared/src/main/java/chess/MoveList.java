@@ -0,0 +1,88 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable buffer of encoded moves (see {@link Move}).
+ * <p>
+ * The default capacity holds every legal move of any chess position, so a list can be
+ * cleared and refilled without ever growing.
+ */
+public class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(256);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    /**
+     * Appends an encoded move
+     *
+     * @param move the move to add
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * @return the encoded move at the given index
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replaces the encoded move at the given index
+     */
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * @return how many moves the list holds
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every move without releasing the buffer
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the list back to an earlier size
+     *
+     * @param size the number of moves to keep
+     */
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Builds ChessMove objects for the moves from {@code start} onwards
+     *
+     * @param start index of the first move to convert
+     * @return the converted moves
+     */
+    public Collection<ChessMove> toChessMoves(int start) {
+        Collection<ChessMove> result = new ArrayList<>(size - start);
+        for (int i = start; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
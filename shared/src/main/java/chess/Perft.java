@@ -0,0 +1,121 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the leaf nodes of the legal move tree from a position ("perft"). The counts
+ * for well known positions are published, so comparing against them checks the move
+ * generator, and timing them measures its speed.
+ * <p>
+ * Run from the command line as {@code Perft [depth] [threads] [fen]}; it prints the
+ * count below each root move ("divide"), the total and the nodes per second.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes at a depth below the game's current position. The game is
+     * played forward and back with doMove/undoMove and is left unchanged.
+     *
+     * @param game  the position to start from
+     * @param depth how many moves deep to count
+     * @return the number of move sequences of that length
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 1; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists);
+    }
+
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        moves.clear();
+        int count = game.legalMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below each legal root move, searching the root moves in
+     * parallel on copies of the game
+     *
+     * @param game    the position to start from; it is not changed
+     * @param depth   how many moves deep to count, at least 1
+     * @param threads how many threads to split the root moves across
+     * @return the count for each root move in coordinate notation, in generation order
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth, int threads) {
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                counts.add(pool.submit(() -> {
+                    ChessGame copy = new ChessGame(game);
+                    copy.doMove(move);
+                    return perft(copy, depth - 1);
+                }));
+            }
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int i = 0; i < rootMoves.size(); i++) {
+                result.put(Move.toUci(rootMoves.get(i)), counts.get(i).get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String fen = (args.length > 2) ? String.join(" ", List.of(args).subList(2, args.length)) : Fen.START;
+
+        ChessGame game = Fen.parse(fen);
+        long start = System.nanoTime();
+        Map<String, Long> counts = divide(game, depth, threads);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.printf("Time: %.3f s%n", elapsed / 1e9);
+        System.out.printf("Nodes/second: %.0f%n", total / (elapsed / 1e9));
+    }
+}
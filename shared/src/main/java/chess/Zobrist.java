@@ -0,0 +1,72 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of chess positions.
+ * <p>
+ * A position's key is the XOR of one key per piece on its square, plus keys for the
+ * team to move, the castling rights and the en passant file. Because XOR undoes
+ * itself, the key can be updated as pieces move instead of being recomputed. The keys
+ * come from a fixed seed so they are the same in every JVM.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long[] seed = {0x5EED_C4E5_5B0A_4D01L};
+        for (long[] squares : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = next(seed);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING_KEYS[rights] = next(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = next(seed);
+        }
+        BLACK_TO_MOVE = next(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece on a square
+     */
+    public static long piece(ChessPiece piece, int square) {
+        return PIECE_KEYS[piece.index][square];
+    }
+
+    /**
+     * @return the key for a set of castling rights, see {@link ChessGame#getCastlingRights()}
+     */
+    public static long castling(int rights) {
+        return CASTLING_KEYS[rights];
+    }
+
+    /**
+     * @return the key for an en passant square, or 0 if there is none
+     */
+    public static long enPassant(int square) {
+        return (square < 0) ? 0 : EN_PASSANT_KEYS[square & 7];
+    }
+
+    /**
+     * @return the key for the team to move; WHITE contributes nothing
+     */
+    public static long side(ChessGame.TeamColor teamTurn) {
+        return (teamTurn == ChessGame.TeamColor.BLACK) ? BLACK_TO_MOVE : 0;
+    }
+
+    private static long next(long[] seed) {
+        // SplitMix64
+        long z = (seed[0] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,323 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes positions for many clients at once, e.g. everyone watching a game.
+ * <p>
+ * Requests are keyed by the position's Zobrist key, so requests for a position that is
+ * already being analyzed join that analysis instead of starting another. Each analysis
+ * is one {@link Search} with no limits, run on a pool of a fixed number of threads that
+ * all share one {@link TranspositionTable}; analyses beyond that wait their turn. Each
+ * request has its own time budget, counted from when its analysis starts running (or
+ * from when it joins one that already is). When the budget runs out the request gets
+ * the deepest result so far, and once no request is left waiting the search is stopped.
+ * <p>
+ * Results of every completed depth are streamed to each request as they arrive, and a
+ * request that joins late is first given the latest one. Each request sees the depths in
+ * increasing order, each at most once, and never gets two calls at the same time. If a
+ * request's progress callback throws, that request's future fails with the exception
+ * and the others carry on. Cancelling a request's future leaves its analysis early.
+ */
+public final class AnalysisService implements AutoCloseable {
+
+    private static final SearchLimits UNLIMITED = new SearchLimits(0, 0, 0);
+
+    private final TranspositionTable table;
+    private final ForkJoinPool pool;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ConcurrentHashMap<Long, Analysis> analyses = new ConcurrentHashMap<>();
+    // Analyses searching right now. Analyses that overlap count as one search of the
+    // table, so a new generation only starts when one begins while none is running.
+    private final AtomicInteger searching = new AtomicInteger();
+
+    /**
+     * @param threads   how many positions may be searched at the same time
+     * @param megabytes the size of the shared transposition table
+     */
+    public AnalysisService(int threads, int megabytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one analysis thread");
+        }
+        table = new TranspositionTable(megabytes);
+        pool = new ForkJoinPool(threads);
+        timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "analysis-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Analyzes a position for a while
+     *
+     * @param game         the position to analyze; it is copied, so it may change afterwards
+     * @param budgetMillis how long to analyze for once the analysis is running
+     * @param progress     called with the result of each completed depth, on the
+     *                     searching thread so it should return quickly; or null. If the
+     *                     position is already being analyzed it is first called with the
+     *                     latest result on the calling thread.
+     * @return completes with the best move found within the budget, or sooner if the
+     * search finishes, e.g. by finding a mate
+     */
+    public CompletableFuture<SearchResult> analyze(ChessGame game, long budgetMillis,
+                                                   Consumer<SearchResult> progress) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("The time budget must be positive");
+        }
+        Request request = new Request(budgetMillis, progress);
+        long key = game.zobristKey();
+        boolean[] created = {false};
+        Analysis analysis = analyses.compute(key, (k, running) -> {
+            if (running != null && running.join(request)) {
+                return running;
+            }
+            Analysis fresh = new Analysis(k, new ChessGame(game));
+            fresh.join(request);
+            created[0] = true;
+            return fresh;
+        });
+        request.future.whenComplete((result, error) -> analysis.leave(request));
+        if (created[0]) {
+            pool.execute(analysis::run);
+        } else {
+            analysis.catchUp(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Analyzes a position for a while
+     *
+     * @see #analyze(ChessGame, long, Consumer)
+     */
+    public CompletableFuture<SearchResult> analyze(ChessGame game, long budgetMillis) {
+        return analyze(game, budgetMillis, null);
+    }
+
+    /**
+     * @return the number of different positions being analyzed or waiting for a thread
+     */
+    public int getAnalyses() {
+        return analyses.size();
+    }
+
+    /**
+     * Stops every analysis. Requests still waiting are completed with the best result
+     * so far, or cancelled if their analysis never started.
+     */
+    @Override
+    public void close() {
+        for (Analysis analysis : analyses.values()) {
+            analysis.close();
+        }
+        pool.shutdown();
+        timer.shutdownNow();
+    }
+
+    /**
+     * One client's interest in an analysis
+     */
+    private static final class Request {
+
+        final long budgetMillis;
+        final Consumer<SearchResult> progress;
+        final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        ScheduledFuture<?> deadline;
+        // The deepest result given to progress so far
+        private int deliveredDepth;
+
+        Request(long budgetMillis, Consumer<SearchResult> progress) {
+            this.budgetMillis = budgetMillis;
+            this.progress = progress;
+        }
+
+        /**
+         * Gives progress a result unless it already had one as deep. The catch-up result
+         * and the live ones come from different threads, so this keeps them in order.
+         * If progress throws, only this request fails; the search goes on for the others.
+         */
+        void deliver(SearchResult result) {
+            try {
+                synchronized (this) {
+                    if (progress != null && result.getDepth() > deliveredDepth) {
+                        deliveredDepth = result.getDepth();
+                        progress.accept(result);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Completing the future makes the request leave its analysis
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The search of one position and the requests waiting on it. The lists are guarded
+     * by the Analysis's lock; results are handed out outside of it.
+     */
+    private final class Analysis {
+
+        private final long key;
+        private final ChessGame game;
+        private final AtomicBoolean stopRequested = new AtomicBoolean();
+        private final List<Request> waiting = new ArrayList<>();
+        // Requests still waiting whose budget ran out before the first depth completed
+        private final List<Request> overdue = new ArrayList<>();
+        private boolean started;
+        private boolean finished;
+        private volatile SearchResult latest;
+
+        Analysis(long key, ChessGame game) {
+            this.key = key;
+            this.game = game;
+        }
+
+        /**
+         * @return false if the analysis has finished or is stopping, so the request needs
+         * a new one
+         */
+        synchronized boolean join(Request request) {
+            if (finished || stopRequested.get()) {
+                return false;
+            }
+            waiting.add(request);
+            if (started) {
+                startClock(request);
+            }
+            return true;
+        }
+
+        /**
+         * Gives a request that joined late the latest result
+         */
+        void catchUp(Request request) {
+            SearchResult result = latest;
+            if (result != null) {
+                request.deliver(result);
+            }
+        }
+
+        synchronized void leave(Request request) {
+            if (request.deadline != null) {
+                request.deadline.cancel(false);
+            }
+            overdue.remove(request);
+            if (waiting.remove(request) && waiting.isEmpty()) {
+                stopRequested.set(true);
+            }
+        }
+
+        void run() {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                started = true;
+                for (Request request : waiting) {
+                    startClock(request);
+                }
+            }
+            if (searching.getAndIncrement() == 0) {
+                table.newSearch();
+            }
+            try {
+                finish(new Search(table, stopRequested).search(game, UNLIMITED, this::publish));
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                searching.decrementAndGet();
+            }
+        }
+
+        private void startClock(Request request) {
+            request.deadline = timer.schedule(() -> expire(request), request.budgetMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void expire(Request request) {
+            SearchResult result = latest;
+            if (result == null) {
+                synchronized (this) {
+                    if (latest == null && waiting.contains(request)) {
+                        overdue.add(request);
+                        return;
+                    }
+                }
+                result = latest;
+            }
+            request.future.complete(result);
+        }
+
+        private void publish(SearchResult result) {
+            List<Request> listeners;
+            List<Request> late;
+            synchronized (this) {
+                latest = result;
+                listeners = new ArrayList<>(waiting);
+                late = new ArrayList<>(overdue);
+                overdue.clear();
+            }
+            for (Request request : listeners) {
+                request.deliver(result);
+            }
+            for (Request request : late) {
+                request.future.complete(result);
+            }
+        }
+
+        private void finish(SearchResult result) {
+            List<Request> remaining = end();
+            for (Request request : remaining) {
+                request.future.complete(result);
+            }
+        }
+
+        private void fail(RuntimeException error) {
+            for (Request request : end()) {
+                request.future.completeExceptionally(error);
+            }
+        }
+
+        void close() {
+            stopRequested.set(true);
+            synchronized (this) {
+                if (started) {
+                    return;
+                }
+            }
+            for (Request request : end()) {
+                request.future.completeExceptionally(new CancellationException("Analysis service closed"));
+            }
+        }
+
+        /**
+         * Marks the analysis finished so no request can join it any more
+         *
+         * @return the requests still waiting for a result
+         */
+        private List<Request> end() {
+            List<Request> remaining;
+            synchronized (this) {
+                finished = true;
+                remaining = new ArrayList<>(waiting);
+                overdue.clear();
+            }
+            analyses.remove(key, this);
+            return remaining;
+        }
+    }
+}
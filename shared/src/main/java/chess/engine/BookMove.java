@@ -0,0 +1,45 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Move;
+
+/**
+ * A move found in an {@link OpeningBook} and how often the book says to play it
+ */
+public final class BookMove {
+
+    private final int move;
+    private final int weight;
+
+    public BookMove(int move, int weight) {
+        this.move = move;
+        this.weight = weight;
+    }
+
+    /**
+     * @return the move, encoded as in {@link Move}
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return the move as a ChessMove
+     */
+    public ChessMove getChessMove() {
+        return Move.toChessMove(move);
+    }
+
+    /**
+     * @return the weight of the move relative to the other moves for the same position,
+     * from 0 (never play it) to 65535
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "BookMove{move=" + Move.toUci(move) + ", weight=" + weight + '}';
+    }
+}
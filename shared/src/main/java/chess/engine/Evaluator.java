@@ -0,0 +1,134 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboard;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Scores a position in centipawns from the point of view of the team to move.
+ * <p>
+ * Material and piece placement come from {@link ChessBoard#getMaterialScore()}, which
+ * the board keeps up to date as pieces move. On top of that each knight, bishop, rook
+ * and queen scores for the squares it can move to that no enemy pawn guards
+ * (mobility), and each king scores for pawns sheltering it and loses for enemy pieces
+ * bearing on the squares around it (king safety). The pawn structure is scored by
+ * {@link PawnStructure}. Like the piece-square tables, these terms have middlegame and
+ * endgame weights that are blended by the material left.
+ */
+public final class Evaluator {
+
+    // Indexed by PieceType ordinal; the king is never traded, so it counts for nothing.
+    // Used to order captures, see Search
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    // Per square of mobility above or below a typical count, by PieceType ordinal
+    private static final int[] MOBILITY_MIDGAME = {0, 1, 5, 4, 2, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 2, 5, 4, 4, 0};
+    private static final int[] MOBILITY_BASE = {0, 14, 7, 4, 7, 0};
+
+    // King safety: attack units per piece type bearing on the king's zone, and shelter
+    private static final int[] ATTACK_UNITS = {0, 5, 2, 2, 3, 0};
+    private static final int MAX_ATTACK_PENALTY = 300;
+    private static final int SHIELD_BONUS = 12;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] MOBILE_TYPES = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.ROOK
+    };
+
+    private Evaluator() {
+    }
+
+    /**
+     * @param game the position to score
+     * @return the score for the team whose turn it is
+     */
+    public static int evaluate(ChessGame game) {
+        return evaluate(game, null);
+    }
+
+    /**
+     * Scores a position, looking the pawn structure up in a cache
+     *
+     * @param game  the position to score
+     * @param pawns the cache of pawn structure scores, or null to always compute them
+     * @return the score for the team whose turn it is
+     */
+    public static int evaluate(ChessGame game, PawnHashTable pawns) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupied();
+        int pawnScore = (pawns == null) ? PawnStructure.evaluate(board) : pawns.probe(board);
+        int midgame = PawnStructure.midgame(pawnScore);
+        int endgame = PawnStructure.endgame(pawnScore);
+
+        for (ChessGame.TeamColor color : COLORS) {
+            ChessGame.TeamColor enemy = (color == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK
+                    : ChessGame.TeamColor.WHITE;
+            int sign = (color == ChessGame.TeamColor.WHITE) ? 1 : -1;
+            long own = board.getOccupancy(color);
+            long guardedByPawns = pawnAttacks(board, enemy);
+            int enemyKing = board.getKingSquare(enemy);
+            long enemyKingZone = (enemyKing < 0) ? 0 : Attacks.king(enemyKing);
+            int attackUnits = 0;
+
+            for (ChessPiece.PieceType type : MOBILE_TYPES) {
+                int t = type.ordinal();
+                long pieces = board.getBitboard(color, type);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    long attacks = switch (type) {
+                        case QUEEN -> Attacks.queen(square, occupied);
+                        case BISHOP -> Attacks.bishop(square, occupied);
+                        case KNIGHT -> Attacks.knight(square);
+                        default -> Attacks.rook(square, occupied);
+                    };
+                    int mobility = Long.bitCount(attacks & ~own & ~guardedByPawns) - MOBILITY_BASE[t];
+                    midgame += sign * MOBILITY_MIDGAME[t] * mobility;
+                    endgame += sign * MOBILITY_ENDGAME[t] * mobility;
+                    attackUnits += ATTACK_UNITS[t] * Long.bitCount(attacks & enemyKingZone);
+                }
+            }
+
+            // Attacks on the enemy king grow more dangerous the more pieces join in
+            midgame += sign * Math.min(attackUnits * attackUnits / 4, MAX_ATTACK_PENALTY);
+            midgame += sign * SHIELD_BONUS * pawnShield(board, color);
+        }
+
+        int score = board.getMaterialScore() + PieceSquareTables.taper(midgame, endgame, board.getPhase());
+        return (game.getTeamTurn() == ChessGame.TeamColor.WHITE) ? score : -score;
+    }
+
+    /**
+     * @return the squares attacked by one team's pawns
+     */
+    private static long pawnAttacks(ChessBoard board, ChessGame.TeamColor color) {
+        long pawns = board.getBitboard(color, ChessPiece.PieceType.PAWN);
+        if (color == ChessGame.TeamColor.WHITE) {
+            return ((pawns << 7) & ~Bitboard.FILE_H) | ((pawns << 9) & ~Bitboard.FILE_A);
+        }
+        return ((pawns >>> 9) & ~Bitboard.FILE_H) | ((pawns >>> 7) & ~Bitboard.FILE_A);
+    }
+
+    /**
+     * @return the number of a team's pawns on the three squares in front of its king
+     */
+    private static int pawnShield(ChessBoard board, ChessGame.TeamColor color) {
+        int king = board.getKingSquare(color);
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        if (king < 0 || (white && king >= 56)) {
+            return 0;
+        }
+        // The rows above the king's for WHITE, below it for BLACK
+        long ahead = white ? -1L << ((king | 7) + 1) : (1L << (king & ~7)) - 1;
+        long front = Attacks.king(king) & ahead;
+        return Long.bitCount(front & board.getBitboard(color, ChessPiece.PieceType.PAWN));
+    }
+}
@@ -0,0 +1,192 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches one position with no limits until it is stopped, publishing the result of
+ * every completed depth as soon as it is found, e.g. to show analysis to everyone
+ * watching a game while it improves.
+ * <p>
+ * Subscribers get each {@link SearchResult} in order of depth, with as many
+ * {@link SearchResult#getVariations() lines} as asked for. When the search ends,
+ * because it was stopped, found a forced mate or reached {@link Search#MAX_DEPTH},
+ * subscribers get the final result if it is newer than the last one published and then
+ * {@code onComplete}. Results are delivered on another thread, so a slow subscriber
+ * never holds up the search. A subscriber that joins late can start from
+ * {@link #getLatest()}.
+ * <p>
+ * Once every subscriber has cancelled or been dropped because its {@code onNext}
+ * threw, the search stops as soon as it can, without finishing the depth it is on. An
+ * InfiniteAnalysis searches only once; start a new one for the next position.
+ */
+public final class InfiniteAnalysis implements Flow.Publisher<SearchResult>, AutoCloseable {
+
+    private static final SearchLimits UNLIMITED = new SearchLimits(0, 0, 0);
+
+    private final ChessGame game;
+    private final TranspositionTable table;
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    // Subscribers that have not cancelled
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Search search;
+    // At most one result per depth plus the final one is published, which always fits in
+    // the default buffer, so submitting never blocks the search
+    private final SubmissionPublisher<SearchResult> publisher = new SubmissionPublisher<>();
+    private volatile SearchResult latest;
+
+    /**
+     * Creates an analysis with its own {@link Search#DEFAULT_TABLE_MB} transposition table
+     *
+     * @param game  the position to analyze; it is copied, so it may change afterwards
+     * @param lines how many of the best moves to find lines for
+     */
+    public InfiniteAnalysis(ChessGame game, int lines) {
+        this(game, lines, new TranspositionTable(Search.DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * @param game  the position to analyze; it is copied, so it may change afterwards
+     * @param lines how many of the best moves to find lines for
+     * @param table the table to use, which other searches may share
+     */
+    public InfiniteAnalysis(ChessGame game, int lines, TranspositionTable table) {
+        this.game = new ChessGame(game);
+        this.table = table;
+        search = new Search(table, stopRequested);
+        search.setMultiPv(lines);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SearchResult> subscriber) {
+        subscribers.incrementAndGet();
+        publisher.subscribe(new Watched(subscriber));
+    }
+
+    /**
+     * Starts searching on a new thread. Subscribe first to get every result.
+     *
+     * @throws IllegalStateException if the analysis was already started
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The analysis was already started");
+        }
+        Thread thread = new Thread(this::run, "infinite-analysis");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks the search to finish as soon as it can. Safe to call from any thread, at any
+     * time; stopping an analysis before it starts makes it end right away.
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+
+    /**
+     * @return the most recent result published, or null if the first depth is not done
+     */
+    public SearchResult getLatest() {
+        return latest;
+    }
+
+    /**
+     * @return true until the search has ended and every subscriber has been told
+     */
+    public boolean isRunning() {
+        return !publisher.isClosed();
+    }
+
+    /**
+     * Stops the search. Subscribers still get the final result and {@code onComplete}.
+     */
+    @Override
+    public void close() {
+        stop();
+        if (!started.getAndSet(true)) {
+            publisher.close();
+        }
+    }
+
+    private void run() {
+        try {
+            table.newSearch();
+            SearchResult result = search.search(game, UNLIMITED, this::publish);
+            // The search only does more work after the last depth it reported if it was
+            // stopped partway through the next one, which may have found a better move
+            SearchResult last = latest;
+            if (last == null || result.getNodes() != last.getNodes()) {
+                latest = result;
+                publisher.submit(result);
+            }
+            publisher.close();
+        } catch (RuntimeException e) {
+            publisher.closeExceptionally(e);
+        }
+    }
+
+    private void publish(SearchResult result) {
+        latest = result;
+        publisher.submit(result);
+    }
+
+    /**
+     * Passes everything through to a subscriber, and stops the search when the last
+     * subscriber cancels or is dropped
+     */
+    private final class Watched implements Flow.Subscriber<SearchResult> {
+
+        private final Flow.Subscriber<? super SearchResult> subscriber;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Watched(Flow.Subscriber<? super SearchResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    leave();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(SearchResult item) {
+            subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // The publisher also drops a subscriber whose onNext threw, and tells it here
+            leave();
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+
+        private void leave() {
+            if (!cancelled.getAndSet(true) && subscribers.decrementAndGet() == 0) {
+                stop();
+            }
+        }
+    }
+}
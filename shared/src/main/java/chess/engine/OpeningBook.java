@@ -0,0 +1,197 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Looks up opening moves in a Polyglot {@code .bin} book.
+ * <p>
+ * A book is a file of 16 byte big-endian entries sorted by position key: the key (see
+ * {@link PolyglotKey}), the move, its weight and 4 bytes of learning data that are
+ * ignored here. The file is memory mapped rather than read, so a book of hundreds of
+ * megabytes takes no heap and the operating system shares its pages between every
+ * OpeningBook (and process) that opens it. A lookup is a binary search over the
+ * mapped entries.
+ * <p>
+ * Lookups only read the mapping, so one OpeningBook can be shared between threads.
+ */
+public final class OpeningBook {
+
+    public static final int ENTRY_BYTES = 16;
+
+    // A single mapping can't be larger than 2 GB, so bigger books are mapped in 1 GB pieces
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_ENTRIES = 1L << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = (int) SEGMENT_ENTRIES - 1;
+
+    // Polyglot promotion codes, by value in bits 12-14 of a move
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final MappedByteBuffer[] segments;
+    private final long entries;
+    private final PolyglotKey keys;
+
+    /**
+     * Maps a book file read-only. The file stays mapped until the OpeningBook is
+     * garbage collected.
+     *
+     * @param file the {@code .bin} book
+     * @param keys the keys the book was written with
+     * @throws IOException if the file can't be mapped or is not a whole number of entries
+     */
+    public OpeningBook(Path file, PolyglotKey keys) throws IOException {
+        this.keys = keys;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException("Not a Polyglot book, its size is not a multiple of " + ENTRY_BYTES + ": " + file);
+            }
+            entries = size / ENTRY_BYTES;
+            segments = new MappedByteBuffer[(int) ((entries + SEGMENT_ENTRIES - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i << SEGMENT_SHIFT;
+                long count = Math.min(SEGMENT_ENTRIES, entries - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * ENTRY_BYTES, count * ENTRY_BYTES);
+            }
+        }
+    }
+
+    /**
+     * Maps a book written with the standard Polyglot keys
+     *
+     * @param file the {@code .bin} book
+     * @return the book
+     * @throws IOException if the file can't be mapped or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return new OpeningBook(file, PolyglotKey.standard());
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public long size() {
+        return entries;
+    }
+
+    /**
+     * Finds the book moves for a game's position. Entries whose move is not legal in the
+     * position (from a key collision or a broken book) are left out.
+     *
+     * @param game the position to look up; it is not changed
+     * @return the moves in book order, which is usually best first, or an empty list
+     */
+    public List<BookMove> moves(ChessGame game) {
+        List<BookMove> moves = new ArrayList<>();
+        long key = keys.key(game);
+        long index = firstEntry(key);
+        if (index == entries) {
+            return moves;
+        }
+
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        for (; index < entries && keyAt(index) == key; index++) {
+            int move = legalMove(segment(index).getShort(offset(index) + 8) & 0xFFFF, legal);
+            if (move != Move.NONE) {
+                moves.add(new BookMove(move, segment(index).getShort(offset(index) + 10) & 0xFFFF));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Chooses a book move at random, in proportion to the weights
+     *
+     * @param game   the position to look up; it is not changed
+     * @param random the source of randomness
+     * @return the move, encoded as in {@link Move}, or {@link Move#NONE} if the book has
+     * no move with a weight above 0 for the position
+     */
+    public int pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.getWeight();
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.getWeight();
+            if (choice < 0) {
+                return move.getMove();
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * @return the index of the first entry with the key, or with the next larger key if
+     * there is none, comparing keys as unsigned numbers the way the book is sorted
+     */
+    private long firstEntry(long key) {
+        long low = 0;
+        long high = entries;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return (low < entries && keyAt(low) == key) ? low : entries;
+    }
+
+    private long keyAt(long index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long index) {
+        return ((int) index & SEGMENT_MASK) * ENTRY_BYTES;
+    }
+
+    /**
+     * Finds the legal move a Polyglot move stands for. Polyglot writes castling as the
+     * king taking its own rook, e.g. e1h1, where the moves here give the king's end square.
+     */
+    private static int legalMove(int polyglotMove, MoveList legal) {
+        int to = polyglotMove & 63;
+        int from = (polyglotMove >>> 6) & 63;
+        int promotion = (polyglotMove >>> 12) & 7;
+        if (promotion >= PROMOTIONS.length) {
+            return Move.NONE;
+        }
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) != from || Move.promotion(move) != PROMOTIONS[promotion]) {
+                continue;
+            }
+            int target = Move.is(move, Move.CASTLE)
+                    ? (Move.to(move) > from ? from + 3 : from - 4)
+                    : Move.to(move);
+            if (target == to) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+}
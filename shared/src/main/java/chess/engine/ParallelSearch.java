@@ -0,0 +1,143 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches one position on several threads at once ("Lazy SMP"). Every thread runs
+ * its own {@link Search} on its own copy of the game, and they share one
+ * {@link TranspositionTable}; the helper threads fill the table with results that the
+ * main thread (the caller's) then finds instead of searching them itself. Helpers on
+ * odd numbered threads start one ply deeper so the threads do not all search the
+ * same positions in the same order.
+ * <p>
+ * The limits apply to the main thread, and the helpers are stopped as soon as it
+ * returns. A ParallelSearch runs one search at a time; {@link #close()} it to release
+ * the helper threads.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+    private final Search main;
+    private final Search[] helpers;
+    private final ExecutorService pool;
+
+    /**
+     * @param threads    how many threads to search with, including the caller's
+     * @param megabytes  the size of the shared transposition table
+     */
+    public ParallelSearch(int threads, int megabytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        table = new TranspositionTable(megabytes);
+        main = new Search(table, stopRequested);
+        helpers = new Search[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(table, stopRequested);
+        }
+        pool = (helpers.length == 0) ? null : Executors.newFixedThreadPool(helpers.length, task -> {
+            Thread thread = new Thread(task, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches a position until the limits are reached. The game passed in is not
+     * changed.
+     *
+     * @param position the position to search
+     * @param limits   when to stop
+     * @return the result of the thread that completed the deepest iteration, with the
+     * positions visited by every thread counted
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        stopRequested.set(false);
+        table.newSearch();
+
+        SearchLimits helperLimits = new SearchLimits(limits.getDepth(), 0, 0);
+        List<Future<SearchResult>> running = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            running.add(pool.submit(() -> helper.search(position, helperLimits, firstDepth)));
+        }
+
+        SearchResult best;
+        try {
+            best = main.search(position, limits, 1);
+        } finally {
+            stopRequested.set(true);
+        }
+
+        long nodes = best.getNodes();
+        try {
+            for (Future<SearchResult> future : running) {
+                SearchResult result = future.get();
+                nodes += result.getNodes();
+                if (result.getDepth() > best.getDepth()) {
+                    best = result;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+        return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes, best.getTimeMillis(),
+                best.getVariations());
+    }
+
+    /**
+     * Asks a running search to return as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+
+    /**
+     * Sets how many of the best root moves every thread finds lines for. Not safe while a
+     * search is running.
+     *
+     * @see Search#setMultiPv(int)
+     */
+    public void setMultiPv(int lines) {
+        main.setMultiPv(lines);
+        for (Search helper : helpers) {
+            helper.setMultiPv(lines);
+        }
+    }
+
+    /**
+     * Forgets every stored result, e.g. when starting on a new game. Not safe while a
+     * search is running.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * @return the number of threads searching, including the caller's
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package chess.engine;
+
+import chess.ChessBoard;
+
+/**
+ * Caches {@link PawnStructure} scores by {@link ChessBoard#pawnKey()}. Pawns move far
+ * less often than other pieces, so nearly every position a search visits has a pawn
+ * structure it has already scored.
+ * <p>
+ * Not thread safe; each {@link Search} has its own. Counts its lookups so the hit rate
+ * can be checked.
+ */
+public final class PawnHashTable {
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * @param entries how many pawn structures to hold, rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Pawn table needs at least one entry");
+        }
+        int size = Integer.highestOneBit(entries);
+        keys = new long[size];
+        scores = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the pawn structure score of a board, computing and storing it on a miss
+     *
+     * @param board the board to score
+     * @return the packed score, see {@link PawnStructure}
+     */
+    public int probe(ChessBoard board) {
+        long key = board.pawnKey();
+        int index = (int) key & mask;
+        probes++;
+        // An empty slot has key 0, which only matches a board with no pawns, whose
+        // score is the 0 the slot already holds
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        int score = PawnStructure.evaluate(board);
+        keys[index] = key;
+        scores[index] = score;
+        return score;
+    }
+
+    /**
+     * @return the number of lookups since the last reset
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of lookups that found a stored score since the last reset
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the share of lookups that were hits, from 0 to 1
+     */
+    public double hitRate() {
+        return (probes == 0) ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Sets the lookup counters back to 0, keeping the stored scores
+     */
+    public void resetCounters() {
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package chess.engine;
+
+import chess.Bitboard;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Scores the pawn structure: passed pawns gain by how far they have advanced, and
+ * doubled and isolated pawns are penalized. The score depends on nothing but the
+ * pawns, so it is cached by {@link PawnHashTable}.
+ * <p>
+ * Scores are packed into one int holding the middlegame value in the low 16 bits and
+ * the endgame value in the high 16 bits, both positive when WHITE is ahead.
+ */
+public final class PawnStructure {
+
+    // By rank counted from the pawn's own side, 0 to 7
+    private static final int[] PASSED_MIDGAME = {0, 0, 5, 10, 20, 35, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 0, 10, 20, 40, 70, 110, 0};
+
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Squares in front of a pawn on its own and the neighboring files, by color and square
+    private static final long[][] PASSED_MASKS = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboard.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = ((file > 0) ? FILES[file - 1] : 0) | ((file < 7) ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            long span = FILES[square & 7] | ADJACENT_FILES[square & 7];
+            int rank = square >>> 3;
+            long above = (rank == 7) ? 0 : -1L << ((rank + 1) * 8);
+            long below = (1L << (rank * 8)) - 1;
+            PASSED_MASKS[ChessGame.TeamColor.WHITE.ordinal()][square] = span & above;
+            PASSED_MASKS[ChessGame.TeamColor.BLACK.ordinal()][square] = span & below;
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * @param board the board to score
+     * @return the packed middlegame and endgame pawn structure score
+     */
+    public static int evaluate(ChessBoard board) {
+        int midgame = 0;
+        int endgame = 0;
+        long whitePawns = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long blackPawns = board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+
+        for (ChessGame.TeamColor color : COLORS) {
+            boolean white = color == ChessGame.TeamColor.WHITE;
+            int sign = white ? 1 : -1;
+            long own = white ? whitePawns : blackPawns;
+            long enemy = white ? blackPawns : whitePawns;
+
+            for (int file = 0; file < 8; file++) {
+                long onFile = own & FILES[file];
+                if (onFile == 0) {
+                    continue;
+                }
+                int extra = Long.bitCount(onFile) - 1;
+                midgame += sign * DOUBLED_MIDGAME * extra;
+                endgame += sign * DOUBLED_ENDGAME * extra;
+                if ((own & ADJACENT_FILES[file]) == 0) {
+                    midgame += sign * ISOLATED_MIDGAME * (extra + 1);
+                    endgame += sign * ISOLATED_ENDGAME * (extra + 1);
+                }
+            }
+
+            long pawns = own;
+            while (pawns != 0) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                // A pawn behind another of its own on the file is not counted as passed
+                if ((PASSED_MASKS[color.ordinal()][square] & (enemy | (own & FILES[square & 7]))) == 0) {
+                    int rank = white ? square >>> 3 : 7 - (square >>> 3);
+                    midgame += sign * PASSED_MIDGAME[rank];
+                    endgame += sign * PASSED_ENDGAME[rank];
+                }
+            }
+        }
+        return pack(midgame, endgame);
+    }
+
+    /**
+     * @return a middlegame and endgame score packed into one int
+     */
+    static int pack(int midgame, int endgame) {
+        return (endgame << 16) + midgame;
+    }
+
+    /**
+     * @return the middlegame part of a packed score
+     */
+    public static int midgame(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * @return the endgame part of a packed score
+     */
+    public static int endgame(int packed) {
+        return (short) ((packed + 0x8000) >> 16);
+    }
+}
@@ -0,0 +1,157 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboard;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Computes the position keys used by Polyglot opening books. They are Zobrist keys
+ * like {@link ChessGame#zobristKey()}, but built from the fixed table of 781 random
+ * numbers ("Random64") that every Polyglot book was written with, so they match the
+ * keys stored in book files.
+ * <p>
+ * The table is data rather than code: {@link #standard()} reads it from the
+ * {@code polyglot-random64.txt} resource next to this class, which holds the 781
+ * numbers from the Polyglot specification in hex, in order. The numbers are laid out as
+ * 768 for the pieces (64 per piece kind, BLACK before WHITE for each of pawn, knight,
+ * bishop, rook, queen and king), then 4 for castling rights, 8 for the en passant file
+ * and 1 for WHITE to move.
+ */
+public final class PolyglotKey {
+
+    public static final int RANDOM_COUNT = 781;
+    public static final String RESOURCE = "polyglot-random64.txt";
+
+    private static final int CASTLE_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    // Polyglot piece kind for each ChessPiece.PieceType ordinal, before adding the color
+    private static final int[] KINDS = {10, 8, 4, 2, 6, 0};
+    private static final int[] CASTLING_RIGHTS = {ChessGame.WHITE_KINGSIDE, ChessGame.WHITE_QUEENSIDE,
+            ChessGame.BLACK_KINGSIDE, ChessGame.BLACK_QUEENSIDE};
+
+    private static volatile PolyglotKey standard;
+
+    private final long[] random;
+
+    /**
+     * @param random the 781 Random64 numbers in Polyglot order
+     * @throws IllegalArgumentException if there are not exactly 781 numbers
+     */
+    public PolyglotKey(long[] random) {
+        if (random.length != RANDOM_COUNT) {
+            throw new IllegalArgumentException("Polyglot keys need " + RANDOM_COUNT + " random numbers, got "
+                    + random.length);
+        }
+        this.random = random.clone();
+    }
+
+    /**
+     * Gets the keys built from the Random64 table in the {@link #RESOURCE} resource. The
+     * table is read the first time and shared after that.
+     *
+     * @return the standard Polyglot keys
+     * @throws IllegalStateException if the resource is missing or malformed
+     */
+    public static PolyglotKey standard() {
+        PolyglotKey keys = standard;
+        if (keys == null) {
+            try (InputStream in = PolyglotKey.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + RESOURCE + " with the Polyglot Random64 table");
+                }
+                keys = load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Could not read " + RESOURCE, e);
+            }
+            standard = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Reads a Random64 table written as 781 hex numbers, with or without a {@code 0x}
+     * prefix, separated by whitespace or commas. Lines starting with {@code #} are skipped.
+     *
+     * @param in the text to read; it is not closed
+     * @return keys built from the table
+     * @throws IOException              if the stream can't be read
+     * @throws IllegalArgumentException if the text does not hold exactly 781 numbers
+     */
+    public static PolyglotKey load(InputStream in) throws IOException {
+        String text = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        long[] random = new long[RANDOM_COUNT];
+        int count = 0;
+        for (String line : text.split("\\R")) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            for (String token : line.split("[\\s,]+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (count == RANDOM_COUNT) {
+                    throw new IllegalArgumentException("More than " + RANDOM_COUNT + " random numbers");
+                }
+                String hex = token.startsWith("0x") || token.startsWith("0X") ? token.substring(2) : token;
+                random[count++] = Long.parseUnsignedLong(hex, 16);
+            }
+        }
+        if (count != RANDOM_COUNT) {
+            throw new IllegalArgumentException("Expected " + RANDOM_COUNT + " random numbers, got " + count);
+        }
+        return new PolyglotKey(random);
+    }
+
+    /**
+     * Computes the Polyglot key of a game's position. As in Polyglot, the en passant file
+     * only counts when a pawn of the team to move stands ready to make the capture.
+     *
+     * @param game the position
+     * @return its key
+     */
+    public long key(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = 0L;
+        long occupied = board.getOccupied();
+        while (occupied != 0) {
+            int square = Bitboard.first(occupied);
+            occupied &= occupied - 1;
+            ChessPiece piece = board.getPiece(square);
+            int kind = KINDS[piece.getPieceType().ordinal()]
+                    + (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 1 : 0);
+            key ^= random[64 * kind + square];
+        }
+
+        int castling = game.getCastlingRights();
+        for (int i = 0; i < CASTLING_RIGHTS.length; i++) {
+            if ((castling & CASTLING_RIGHTS[i]) != 0) {
+                key ^= random[CASTLE_OFFSET + i];
+            }
+        }
+
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant >= 0) {
+            ChessGame.TeamColor turn = game.getTeamTurn();
+            ChessGame.TeamColor other = (turn == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK
+                    : ChessGame.TeamColor.WHITE;
+            // Pawns of the team to move that attack the square are where an enemy pawn there would attack
+            if ((Attacks.pawn(other, enPassant) & board.getBitboard(turn, ChessPiece.PieceType.PAWN)) != 0) {
+                key ^= random[EN_PASSANT_OFFSET + (enPassant & 7)];
+            }
+        }
+
+        if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+            key ^= random[TURN_OFFSET];
+        }
+        return key;
+    }
+}
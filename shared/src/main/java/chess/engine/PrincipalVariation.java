@@ -0,0 +1,92 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * One line of play found by a {@link Search}: a move at the root and the replies the
+ * search expects from both teams after it, with the score of the line for the team to
+ * move
+ */
+public final class PrincipalVariation {
+
+    private final int[] moves;
+    private final int score;
+
+    /**
+     * @param moves the moves of the line, encoded as in {@link Move}, starting with the
+     *              root move; the array is copied
+     * @param score the score in centipawns for the team to move
+     */
+    public PrincipalVariation(int[] moves, int score) {
+        if (moves.length == 0) {
+            throw new IllegalArgumentException("A variation needs at least one move");
+        }
+        this.moves = moves.clone();
+        this.score = score;
+    }
+
+    /**
+     * @return the moves of the line, encoded as in {@link Move}
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * @return the move played at the root
+     */
+    public int getFirstMove() {
+        return moves[0];
+    }
+
+    /**
+     * @return the number of moves in the line. The line can be shorter than the depth
+     * searched where the rest of it was found in the transposition table.
+     */
+    public int length() {
+        return moves.length;
+    }
+
+    /**
+     * @return the score of the line in centipawns for the team to move; see
+     * {@link Search#isMateScore(int)} for mate scores
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the moves in UCI notation separated by spaces, e.g. {@code "e2e4 e7e5"}
+     */
+    public String toUci() {
+        StringBuilder line = new StringBuilder();
+        for (int move : moves) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(Move.toUci(move));
+        }
+        return line.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PrincipalVariation that = (PrincipalVariation) o;
+        return score == that.score && Arrays.equals(moves, that.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(moves) * 31 + score;
+    }
+
+    @Override
+    public String toString() {
+        return "PrincipalVariation{moves=" + toUci() + ", score=" + score + '}';
+    }
+}
@@ -0,0 +1,605 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Finds the best move in a position with an iterative deepening negamax alpha-beta
+ * search, followed by a quiescence search of captures so positions are only scored
+ * once they are quiet.
+ * <p>
+ * Moves are tried in the order most likely to cut the search short: the best move of
+ * the previous iteration at the root, then captures by most valuable victim and least
+ * valuable attacker, then quiet moves that caused cutoffs at the same ply ("killers")
+ * and quiet moves ranked by how often they caused cutoffs anywhere ("history").
+ * Captures that lose material once the exchange is played out (see
+ * {@link ChessBoard#see(int)}) go last, and the quiescence search skips them.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, so positions reached by different
+ * move orders are only searched once and the best move found for a position last
+ * time is tried first.
+ * <p>
+ * The line of play behind each score is collected on the way back up the tree, so every
+ * result comes with its principal variation. With {@link #setMultiPv(int)} the search
+ * finds exact scores and lines for several of the best root moves instead of just the
+ * best one, at the cost of fewer cutoffs at the root.
+ * <p>
+ * Every buffer is allocated with the Search, so searching allocates nothing per
+ * position visited. A Search is not thread safe; give each thread its own, although
+ * they may share a table.
+ */
+public final class Search {
+
+    public static final int MAX_DEPTH = 64;
+    public static final int MATE = 30000;
+    public static final int DEFAULT_TABLE_MB = 16;
+    public static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    static final int MAX_PLY = 128;
+    private static final int MAX_MOVES = 256;
+    private static final int INFINITY = 32000;
+
+    // Move ordering scores, from tried first to tried last
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 20;
+    private static final int LOSING_CAPTURE_SCORE = -(1 << 24);
+
+    // How often to look at the clock, as a mask of the node count
+    private static final int CHECK_INTERVAL = 1023;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] moveScores = new int[MAX_PLY][MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+    // The line from each ply down, in pvTable[ply][ply] to pvTable[ply][pvLength[ply] - 1]
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final TranspositionTable table;
+    private final PawnHashTable pawnTable = new PawnHashTable(PAWN_TABLE_ENTRIES);
+
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean stopped;
+
+    // Set to end the search early; shared by every thread of a ParallelSearch, which
+    // then resets it itself
+    private final AtomicBoolean stopRequested;
+    // A search on its own resets the stop flag and starts a new generation in the table;
+    // one that is part of a larger search leaves both to its owner
+    private final boolean standalone;
+
+    // Outcome of the last call to searchRoot
+    private int rootBestMove;
+    private int rootBestScore;
+
+    // The best root moves of the last call to searchRoot with their lines, best first
+    private int multiPv = 1;
+    private int[][] lineMoves = new int[1][MAX_PLY];
+    private int[] lineLengths = new int[1];
+    private int[] lineScores = new int[1];
+    private int lineCount;
+
+    /**
+     * Creates a search with its own {@link #DEFAULT_TABLE_MB} transposition table
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * Creates a search that stores results in the given table
+     *
+     * @param table the table to use, which other searches may share
+     */
+    public Search(TranspositionTable table) {
+        this(table, new AtomicBoolean(), true);
+    }
+
+    /**
+     * Creates one of the searches of a larger one, e.g. a thread of a parallel search.
+     * They all stop together, and the owner starts each new generation in the table.
+     */
+    Search(TranspositionTable table, AtomicBoolean stopRequested) {
+        this(table, stopRequested, false);
+    }
+
+    private Search(TranspositionTable table, AtomicBoolean stopRequested, boolean standalone) {
+        this.table = table;
+        this.stopRequested = stopRequested;
+        this.standalone = standalone;
+        for (int i = 0; i < MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches a position until the limits are reached. The game passed in is not
+     * changed; the search works on its own copy.
+     *
+     * @param position the position to search
+     * @param limits   when to stop
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        return search(position, limits, null);
+    }
+
+    /**
+     * Searches a position until the limits are reached, reporting the result of each
+     * iteration as it completes. The game passed in is not changed.
+     *
+     * @param position the position to search
+     * @param limits   when to stop
+     * @param progress called on the searching thread with the best move so far after
+     *                 each completed depth, or null
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits, Consumer<SearchResult> progress) {
+        if (standalone) {
+            table.newSearch();
+        }
+        return search(position, limits, 1, progress);
+    }
+
+    /**
+     * Searches a position, starting iterative deepening at {@code firstDepth}, without
+     * starting a new generation in the table
+     */
+    SearchResult search(ChessGame position, SearchLimits limits, int firstDepth) {
+        return search(position, limits, firstDepth, null);
+    }
+
+    private SearchResult search(ChessGame position, SearchLimits limits, int firstDepth,
+                                Consumer<SearchResult> progress) {
+        long start = System.nanoTime();
+        game = new ChessGame(position);
+        board = game.getBoard();
+        nodes = 0;
+        maxNodes = (limits.getNodes() > 0) ? limits.getNodes() : Long.MAX_VALUE;
+        deadline = (limits.getTimeMillis() > 0) ? start + limits.getTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        stopped = false;
+        if (standalone) {
+            stopRequested.set(false);
+        }
+        clearOrdering();
+        lineCount = 0;
+
+        int maxDepth = (limits.getDepth() > 0) ? Math.min(limits.getDepth(), MAX_DEPTH) : MAX_DEPTH;
+        MoveList rootMoves = moveLists[0];
+        rootMoves.clear();
+        int count = game.legalMoves(rootMoves);
+        if (count == 0) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(Move.NONE, score, 0, 0, elapsedMillis(start));
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = Evaluator.evaluate(game, pawnTable);
+        List<PrincipalVariation> variations = List.of();
+        int completedDepth = 0;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            searchRoot(depth, count, bestMove);
+            // The previous best move is searched first, so any move that finished in an
+            // interrupted iteration is at least as good as it
+            if (rootBestMove != Move.NONE) {
+                bestMove = rootBestMove;
+                bestScore = rootBestScore;
+            }
+            if (stopped) {
+                variations = collectLines(variations);
+                break;
+            }
+            completedDepth = depth;
+            variations = collectLines(List.of());
+            table.store(game.zobristKey(), bestMove, bestScore, depth, TranspositionTable.EXACT, 0);
+            if (progress != null) {
+                progress.accept(new SearchResult(bestMove, bestScore, depth, nodes, elapsedMillis(start), variations));
+            }
+            if (isMateScore(bestScore)) {
+                break;
+            }
+        }
+        if (variations.isEmpty()) {
+            // Stopped before the first move of the first depth was done
+            return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsedMillis(start));
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsedMillis(start), variations);
+    }
+
+    /**
+     * Sets how many of the best root moves to find exact scores and lines for. Not safe
+     * while a search is running.
+     *
+     * @param lines the number of lines, from 1 (the default) to 256
+     */
+    public void setMultiPv(int lines) {
+        if (lines < 1 || lines > MAX_MOVES) {
+            throw new IllegalArgumentException("Multi-PV must be between 1 and " + MAX_MOVES);
+        }
+        multiPv = lines;
+        lineMoves = new int[lines][MAX_PLY];
+        lineLengths = new int[lines];
+        lineScores = new int[lines];
+        lineCount = 0;
+    }
+
+    /**
+     * @return how many of the best root moves each search finds lines for
+     */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Asks a running search to return as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+
+    /**
+     * @return this search's cache of pawn structure scores, e.g. to check its hit rate
+     */
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * @return true if the score means one team can force checkmate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    /**
+     * Searches every root move, keeping the best multiPv of them and their lines, best
+     * first, and leaving the best move and score in rootBestMove and rootBestScore. The
+     * move is {@link Move#NONE} if the search was stopped before any move was finished.
+     */
+    private void searchRoot(int depth, int count, int previousBest) {
+        MoveList moves = moveLists[0];
+        scoreMoves(moves, count, 0, previousBest);
+        // The lines of the previous iteration go first, in order
+        int[] scores = moveScores[0];
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < lineCount; k++) {
+                if (moves.get(i) == lineMoves[k][0]) {
+                    scores[i] = Integer.MAX_VALUE - k;
+                }
+            }
+        }
+        lineCount = 0;
+
+        // Only moves that might make the best multiPv need an exact score, so once that
+        // many are kept the worst of them is the lower bound of the window
+        int alpha = -INFINITY;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, i, count, 0);
+            game.doMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            game.undoMove();
+            if (stopped) {
+                break;
+            }
+            if (score > alpha) {
+                addLine(move, score);
+                if (lineCount == multiPv) {
+                    alpha = lineScores[multiPv - 1];
+                }
+            }
+        }
+        rootBestMove = (lineCount > 0) ? lineMoves[0][0] : Move.NONE;
+        rootBestScore = (lineCount > 0) ? lineScores[0] : -INFINITY;
+    }
+
+    /**
+     * Keeps a root move that was just searched and the line found below it, dropping the
+     * worst line kept if there are already multiPv of them
+     */
+    private void addLine(int move, int score) {
+        int k = Math.min(lineCount, multiPv - 1);
+        int[] line = lineMoves[k];
+        while (k > 0 && lineScores[k - 1] < score) {
+            lineMoves[k] = lineMoves[k - 1];
+            lineLengths[k] = lineLengths[k - 1];
+            lineScores[k] = lineScores[k - 1];
+            k--;
+        }
+        line[0] = move;
+        System.arraycopy(pvTable[1], 1, line, 1, pvLength[1] - 1);
+        lineMoves[k] = line;
+        lineLengths[k] = pvLength[1];
+        lineScores[k] = score;
+        lineCount = Math.min(lineCount + 1, multiPv);
+    }
+
+    /**
+     * @param earlier the lines of the last completed depth, for root moves the last call
+     *                to searchRoot was stopped before reaching
+     * @return the lines of the last call to searchRoot, followed by those of
+     * {@code earlier} for other root moves, up to multiPv lines
+     */
+    private List<PrincipalVariation> collectLines(List<PrincipalVariation> earlier) {
+        List<PrincipalVariation> lines = new ArrayList<>(multiPv);
+        for (int k = 0; k < lineCount; k++) {
+            lines.add(new PrincipalVariation(Arrays.copyOf(lineMoves[k], lineLengths[k]), lineScores[k]));
+        }
+        for (PrincipalVariation line : earlier) {
+            if (lines.size() == multiPv) {
+                break;
+            }
+            boolean found = false;
+            for (int k = 0; k < lineCount; k++) {
+                found |= lineMoves[k][0] == line.getFirstMove();
+            }
+            if (!found) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (game.getHalfmoveClock() >= 100 || game.repetitions() >= 2) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode() || ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(game, pawnTable);
+        }
+
+        long key = game.zobristKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        int count = game.legalMoves(moves);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        // The hash move only comes first if it is one of the legal moves, so a key
+        // collision cannot make the search play an illegal move
+        scoreMoves(moves, count, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, i, count, ply);
+            game.doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!isTactical(move)) {
+                            rememberCutoff(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = (best >= beta)
+                ? TranspositionTable.LOWER
+                : (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    /**
+     * Searches only captures and promotions until the position is quiet, so the
+     * evaluation is never taken in the middle of an exchange. When in check every
+     * move is searched, since standing still is not an option.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode() || ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(game, pawnTable);
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluator.evaluate(game, pawnTable);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        int count = game.legalMoves(moves);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, count, ply, Move.NONE);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, i, count, ply);
+            // Tactical moves are ordered first, so the rest are quiet moves or captures
+            // that lose material in the exchange, neither of which is worth searching here
+            if (!inCheck && moveScores[ply][i] < CAPTURE_SCORE) {
+                break;
+            }
+            game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a visited position and checks the limits every so often
+     *
+     * @return true if the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0 || nodes >= maxNodes) {
+            if (stopRequested.get() || nodes >= maxNodes || System.nanoTime() >= deadline) {
+                stopped = true;
+            }
+        }
+        return stopped;
+    }
+
+    private void scoreMoves(MoveList moves, int count, int ply, int firstMove) {
+        int[] scores = moveScores[ply];
+        int side = game.getTeamTurn().ordinal();
+        for (int i = 0; i < count; i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            int to = Move.to(move);
+            if (move == firstMove) {
+                scores[i] = Integer.MAX_VALUE;
+            } else if (Move.is(move, Move.CAPTURE)) {
+                ChessPiece victim = board.getPiece(to);
+                int victimValue = (victim == null)
+                        ? Evaluator.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()]
+                        : Evaluator.PIECE_VALUES[victim.getPieceType().ordinal()];
+                int attackerValue = Evaluator.PIECE_VALUES[board.getPiece(from).getPieceType().ordinal()];
+                // Taking a piece worth at least the capturer can't lose material, so only
+                // the other captures need the exchange played out
+                boolean losing = attackerValue > victimValue && board.see(move) < 0;
+                scores[i] = (losing ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + victimValue * 16 - attackerValue / 16;
+            } else if (Move.promotion(move) != null) {
+                scores[i] = CAPTURE_SCORE + Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[side][from][to];
+            }
+        }
+    }
+
+    /**
+     * Moves the best scoring move not yet tried into position {@code index}
+     *
+     * @return the move to try next
+     */
+    private int pickMove(MoveList moves, int index, int count, int ply) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Makes the line at a ply the move just searched followed by the line below it
+     */
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[ply] = move;
+        System.arraycopy(pvTable[ply + 1], ply + 1, line, ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] counts = history[game.getTeamTurn().ordinal()][Move.from(move)];
+        counts[Move.to(move)] += depth * depth;
+        // Keep history below the killer scores
+        if (counts[Move.to(move)] >= KILLER_SCORE) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                for (int to = 0; to < 64; to++) {
+                    from[to] /= 2;
+                }
+            }
+        }
+    }
+
+    private void clearOrdering() {
+        for (int[] slots : killers) {
+            slots[0] = Move.NONE;
+            slots[1] = Move.NONE;
+        }
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                Arrays.fill(from, 0);
+            }
+        }
+    }
+
+    private static boolean isTactical(int move) {
+        return Move.is(move, Move.CAPTURE) || Move.promotion(move) != null;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,73 @@
+package chess.engine;
+
+/**
+ * How far a {@link Search} may go before it must return its best move. Any limit left
+ * at 0 does not apply; a search with no limits at all runs to {@link Search#MAX_DEPTH}.
+ */
+public final class SearchLimits {
+
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+
+    /**
+     * @param depth      the deepest iteration to search, in plies
+     * @param nodes      the most positions to visit
+     * @param timeMillis the most wall clock time to use
+     */
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        if (depth < 0 || nodes < 0 || timeMillis < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * @return limits that stop after completing the given depth
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * @return limits that stop after visiting about the given number of positions
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    /**
+     * @return limits that stop after the given time has passed
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, 0, timeMillis);
+    }
+
+    /**
+     * @return the deepest iteration to search, or 0 for no limit
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the most positions to visit, or 0 for no limit
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the most time to use in milliseconds, or 0 for no limit
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{depth=" + depth + ", nodes=" + nodes + ", timeMillis=" + timeMillis + '}';
+    }
+}
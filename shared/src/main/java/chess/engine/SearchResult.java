@@ -0,0 +1,108 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Move;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link Search}: the move it chose, its score, the lines of play it
+ * expects and how much work it did
+ */
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final List<PrincipalVariation> variations;
+
+    /**
+     * Creates a result whose only variation is the best move itself
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis) {
+        this(bestMove, score, depth, nodes, timeMillis, (bestMove == Move.NONE)
+                ? List.of()
+                : List.of(new PrincipalVariation(new int[]{bestMove}, score)));
+    }
+
+    /**
+     * @param variations the lines found, best first; the first starts with the best move
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis,
+                        List<PrincipalVariation> variations) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.variations = List.copyOf(variations);
+    }
+
+    /**
+     * @return the best move found, encoded as in {@link Move}, or {@link Move#NONE} if the
+     * team to move has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the best move found, or null if the team to move has no legal move
+     */
+    public ChessMove getBestChessMove() {
+        return (bestMove == Move.NONE) ? null : Move.toChessMove(bestMove);
+    }
+
+    /**
+     * @return the score of the best move in centipawns for the team to move; see
+     * {@link Search#isMateScore(int)} for mate scores
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the deepest iteration that was completed
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of positions visited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the time the search took in milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * @return the best line found, or null if the team to move has no legal move
+     */
+    public PrincipalVariation getPrincipalVariation() {
+        return variations.isEmpty() ? null : variations.get(0);
+    }
+
+    /**
+     * @return the lines found for the best root moves, best first; as many as the search's
+     * {@link Search#setMultiPv(int) multi-PV} setting asked for, if there are that many
+     * legal moves
+     */
+    public List<PrincipalVariation> getVariations() {
+        return variations;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{bestMove=" + (bestMove == Move.NONE ? "none" : Move.toUci(bestMove))
+                + ", score=" + score + ", depth=" + depth + ", nodes=" + nodes + ", timeMillis=" + timeMillis + '}';
+    }
+}
@@ -0,0 +1,517 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboard;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up the exact result of endgame positions with at most {@link #MAX_PIECES}
+ * pieces (kings included) in precomputed tables, the way Syzygy tablebases are used.
+ * <p>
+ * There is one file per set of material, named like {@code KQvK.tb} with WHITE's pieces
+ * before the {@code v}. Only the stronger side's version of each is stored: a position
+ * where BLACK has the queen is looked up in {@code KQvK.tb} with the colors swapped and
+ * the board turned over. A file is a 16 byte header followed by one big-endian
+ * {@code short} per position, laid out as described in {@link Layout}. The value is the
+ * DTZ (see {@link TablebaseResult#getDtz()}) for a win, 0 for a draw and -(DTZ + 1) for
+ * a loss. {@link TablebaseGenerator} writes the files.
+ * <p>
+ * Files are memory mapped the first time a position needs them, so they take no heap
+ * and their pages are shared with every other process using them. Lookups only read
+ * the mappings, so a Tablebase can be shared by any number of threads.
+ * <p>
+ * Castling and the fifty move rule are not part of the tables, so positions that still
+ * have castling rights or an en passant capture available are not looked up, and a win
+ * may take more than fifty moves.
+ */
+public final class Tablebase {
+
+    public static final int MAX_PIECES = 5;
+    public static final String EXTENSION = ".tb";
+
+    static final int MAGIC = 0x54424C32;
+    static final int HEADER_BYTES = 16;
+    static final int INVALID = Short.MIN_VALUE;
+    static final int MISSING = Integer.MIN_VALUE;
+
+    // Letter for each ChessPiece.PieceType ordinal, and the order pieces are listed in a signature
+    static final String LETTERS = "KQBNRP";
+    private static final int[] SIGNATURE_ORDER = {0, 1, 3, 4, 2, 5};
+    private static final int[] STRENGTH = {0, 9, 3, 3, 5, 1};
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, Optional<Table>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory the folder holding the {@code .tb} files; files are opened as needed
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Looks up the result of a game's position
+     *
+     * @param game the position; it is not changed
+     * @return the result for the team to move, or null if the position has too many
+     * pieces, castling rights, an en passant capture or no table in the directory
+     * @throws IllegalStateException if a table file is damaged
+     */
+    public TablebaseResult probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int count = Long.bitCount(board.getOccupied());
+        if (count > MAX_PIECES || game.getCastlingRights() != 0 || canCaptureEnPassant(game)) {
+            return null;
+        }
+
+        int[] pieces = new int[count];
+        int[] squares = new int[count];
+        long occupied = board.getOccupied();
+        for (int i = 0; i < count; i++) {
+            int square = Bitboard.first(occupied);
+            occupied &= occupied - 1;
+            ChessPiece piece = board.getPiece(square);
+            pieces[i] = piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+            squares[i] = square;
+        }
+        int value = lookup(pieces, squares, count, game.getTeamTurn().ordinal());
+        return (value == MISSING || value == INVALID) ? null : result(value);
+    }
+
+    /**
+     * Finds the move that keeps the best result: the fastest win, a draw, or else the
+     * slowest loss
+     *
+     * @param game the position; it is not changed
+     * @return the move, encoded as in {@link Move}, or {@link Move#NONE} if the position
+     * can't be looked up or has no legal move
+     * @throws IllegalStateException if a table file is damaged
+     */
+    public int bestMove(ChessGame game) {
+        if (probe(game) == null) {
+            return Move.NONE;
+        }
+        ChessGame copy = new ChessGame(game);
+        MoveList moves = new MoveList();
+        int count = copy.legalMoves(moves);
+
+        int best = Move.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int move = moves.get(i);
+            boolean zeroing = Move.is(move, Move.CAPTURE)
+                    || copy.getBoard().getPiece(Move.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+            copy.doMove(move);
+            TablebaseResult after = probe(copy);
+            copy.undoMove();
+            if (after == null) {
+                continue;
+            }
+            // The result after the move is for the other team
+            int distance = zeroing ? 1 : after.getDtz() + 1;
+            int rank = switch (after.getOutcome()) {
+                case LOSS -> 100000 - distance;
+                case DRAW -> 0;
+                case WIN -> -100000 + distance;
+            };
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Looks up the raw table value of a position given as a list of pieces. The arrays
+     * are reordered in place.
+     *
+     * @param pieces  TeamColor ordinal * 6 + PieceType ordinal of each piece
+     * @param squares the square of each piece
+     * @param count   how many of the array entries are used
+     * @param turn    the TeamColor ordinal of the team to move
+     * @return the value stored for the position, or {@link #MISSING} if there is no table
+     */
+    int lookup(int[] pieces, int[] squares, int count, int turn) {
+        turn = canonicalize(pieces, squares, count, turn);
+        Table table = table(signature(pieces, count));
+        if (table == null) {
+            return MISSING;
+        }
+        long index = table.layout.index(squares, turn, new int[count]);
+        return (index < 0) ? INVALID : table.read(index);
+    }
+
+    /**
+     * Puts a position in the form it is stored in: the colors swapped and the board
+     * turned over if BLACK is the stronger side, then the pieces in signature order. Equal
+     * pieces keep their order.
+     *
+     * @return the TeamColor ordinal of the team to move afterwards
+     */
+    static int canonicalize(int[] pieces, int[] squares, int count, int turn) {
+        long white = 0;
+        long black = 0;
+        for (int i = 0; i < count; i++) {
+            int type = pieces[i] % 6;
+            // Material first, then the pieces themselves from the highest in signature order
+            long strength = ((long) STRENGTH[type] << 32) + (1L << (4 * (5 - SIGNATURE_ORDER[type])));
+            if (pieces[i] < 6) {
+                white += strength;
+            } else {
+                black += strength;
+            }
+        }
+        if (white < black) {
+            for (int i = 0; i < count; i++) {
+                pieces[i] = (pieces[i] + 6) % 12;
+                squares[i] ^= 56;
+            }
+            turn = 1 - turn;
+        }
+
+        for (int i = 1; i < count; i++) {
+            int piece = pieces[i];
+            int square = squares[i];
+            int j = i - 1;
+            while (j >= 0 && sortKey(pieces[j]) > sortKey(piece)) {
+                pieces[j + 1] = pieces[j];
+                squares[j + 1] = squares[j];
+                j--;
+            }
+            pieces[j + 1] = piece;
+            squares[j + 1] = square;
+        }
+        return turn;
+    }
+
+    /**
+     * @return the name of a table, e.g. {@code KQvK}, for pieces in signature order
+     */
+    static String signature(int[] pieces, int count) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && pieces[i] / 6 != pieces[i - 1] / 6) {
+                name.append('v');
+            }
+            name.append(LETTERS.charAt(pieces[i] % 6));
+        }
+        return name.toString();
+    }
+
+    static TablebaseResult result(int value) {
+        if (value > 0) {
+            return new TablebaseResult(TablebaseResult.Outcome.WIN, value);
+        }
+        if (value == 0) {
+            return new TablebaseResult(TablebaseResult.Outcome.DRAW, 0);
+        }
+        return new TablebaseResult(TablebaseResult.Outcome.LOSS, -value - 1);
+    }
+
+    private static int sortKey(int piece) {
+        return (piece / 6) * 6 + SIGNATURE_ORDER[piece % 6];
+    }
+
+    private static boolean canCaptureEnPassant(ChessGame game) {
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant < 0) {
+            return false;
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        ChessGame.TeamColor other = (turn == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        return (Attacks.pawn(other, enPassant) & game.getBoard().getBitboard(turn, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    private Table table(String signature) {
+        return tables.computeIfAbsent(signature, name -> {
+            Path file = directory.resolve(name + EXTENSION);
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new Table(file, name));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map tablebase " + file, e);
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Where each position of one set of material is stored in its table.
+     * <p>
+     * Turning or mirroring the board does not change a result, so only one position of
+     * each set of such copies is stored. Without pawns the board is turned and mirrored
+     * until WHITE's king is in the a1-d1-d4 triangle, and BLACK's king below the a1-h8
+     * diagonal if WHITE's is on it, leaving 462 ways to place the kings. Pawns only allow
+     * mirroring left to right, which puts WHITE's king on files a to d with 1806 places
+     * for the pair. Identical pieces can trade squares, so each group of them is stored
+     * as a combination of squares rather than one square each; pawns never stand on the
+     * first or last row, so they only count 48 squares.
+     * <p>
+     * The index is the team to move, then the king placement, then the combination of each
+     * group of identical pieces in signature order.
+     */
+    static final class Layout {
+
+        private static final int PAWNLESS = 0;
+        private static final int WITH_PAWNS = 1;
+
+        // Number for each pair of king squares (WHITE * 64 + BLACK), or -1 if the pair is
+        // not stored, and the squares back from each number
+        private static final int[][] KINGS = new int[2][64 * 64];
+        private static final int[][] KING_SQUARES = new int[2][];
+        private static final long[][] CHOOSE = new long[65][MAX_PIECES + 1];
+
+        static {
+            for (int mode = PAWNLESS; mode <= WITH_PAWNS; mode++) {
+                int[] squares = new int[64 * 64];
+                int placements = 0;
+                for (int white = 0; white < 64; white++) {
+                    for (int black = 0; black < 64; black++) {
+                        KINGS[mode][white * 64 + black] = -1;
+                        if ((Attacks.king(white) & Bitboard.bit(black)) != 0 || white == black
+                                || file(white) > 3) {
+                            continue;
+                        }
+                        if (mode == PAWNLESS && (rank(white) > file(white)
+                                || (rank(white) == file(white) && rank(black) > file(black)))) {
+                            continue;
+                        }
+                        squares[placements] = white * 64 + black;
+                        KINGS[mode][white * 64 + black] = placements++;
+                    }
+                }
+                KING_SQUARES[mode] = Arrays.copyOf(squares, placements);
+            }
+            for (int n = 0; n <= 64; n++) {
+                CHOOSE[n][0] = 1;
+                for (int k = 1; k <= MAX_PIECES && k <= n; k++) {
+                    CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + CHOOSE[n - 1][k];
+                }
+            }
+        }
+
+        private final int count;
+        private final int blackKing;
+        private final int mode;
+        // First piece, size, lowest square and number of combinations of each group of
+        // identical pieces other than the kings
+        private final int[] groupStart;
+        private final int[] groupSize;
+        private final int[] groupOffset;
+        private final long[] groupCombinations;
+        private final long positions;
+
+        /**
+         * @param pieces the pieces in signature order, see {@link Tablebase#canonicalize}
+         * @param count  how many of the array entries are used
+         */
+        Layout(int[] pieces, int count) {
+            this.count = count;
+            int black = -1;
+            boolean pawns = false;
+            int groups = 0;
+            int[] starts = new int[count];
+            int[] sizes = new int[count];
+            for (int i = 0; i < count; i++) {
+                int type = pieces[i] % 6;
+                if (type == ChessPiece.PieceType.KING.ordinal()) {
+                    if (pieces[i] >= 6) {
+                        black = i;
+                    }
+                    continue;
+                }
+                pawns |= type == ChessPiece.PieceType.PAWN.ordinal();
+                if (groups > 0 && pieces[starts[groups - 1]] == pieces[i]) {
+                    sizes[groups - 1]++;
+                } else {
+                    starts[groups] = i;
+                    sizes[groups++] = 1;
+                }
+            }
+            if (pieces[0] != ChessPiece.PieceType.KING.ordinal() || black < 0) {
+                throw new IllegalArgumentException("Each team needs one king: " + signature(pieces, count));
+            }
+            blackKing = black;
+            mode = pawns ? WITH_PAWNS : PAWNLESS;
+            groupStart = Arrays.copyOf(starts, groups);
+            groupSize = Arrays.copyOf(sizes, groups);
+            groupOffset = new int[groups];
+            groupCombinations = new long[groups];
+            long total = 2L * KING_SQUARES[mode].length;
+            for (int g = 0; g < groups; g++) {
+                boolean pawn = pieces[starts[g]] % 6 == ChessPiece.PieceType.PAWN.ordinal();
+                groupOffset[g] = pawn ? 8 : 0;
+                groupCombinations[g] = CHOOSE[pawn ? 48 : 64][sizes[g]];
+                total *= groupCombinations[g];
+            }
+            positions = total;
+        }
+
+        /**
+         * @return the number of entries in the table
+         */
+        long positions() {
+            return positions;
+        }
+
+        /**
+         * Finds where a position is stored
+         *
+         * @param squares the square of each piece, in signature order; not changed
+         * @param turn    the TeamColor ordinal of the team to move
+         * @param scratch an array at least as long as the number of pieces to work in
+         * @return the index, or -1 if the kings stand next to each other
+         */
+        long index(int[] squares, int turn, int[] scratch) {
+            System.arraycopy(squares, 0, scratch, 0, count);
+            if (file(scratch[0]) > 3) {
+                flip(scratch, 7);
+            }
+            if (mode == WITH_PAWNS) {
+                return rawIndex(scratch, turn);
+            }
+            if (rank(scratch[0]) > 3) {
+                flip(scratch, 56);
+            }
+            int white = scratch[0];
+            int black = scratch[blackKing];
+            if (rank(white) > file(white) || (rank(white) == file(white) && rank(black) > file(black))) {
+                transpose(scratch);
+            } else if (rank(white) == file(white) && rank(black) == file(black)) {
+                // Both kings on the diagonal: the position and its mirror image across it are
+                // stored once, under the smaller index
+                long plain = rawIndex(scratch, turn);
+                transpose(scratch);
+                return Math.min(plain, rawIndex(scratch, turn));
+            }
+            return rawIndex(scratch, turn);
+        }
+
+        /**
+         * Sets out the position stored at an index. It may not be a legal position, or not
+         * the one its copies are stored under; check that {@link #index} gives it back.
+         *
+         * @param index   the index
+         * @param squares filled with the square of each piece, in signature order
+         * @return the TeamColor ordinal of the team to move
+         */
+        int position(long index, int[] squares) {
+            for (int g = groupStart.length - 1; g >= 0; g--) {
+                long combination = index % groupCombinations[g];
+                index /= groupCombinations[g];
+                // The largest square first, as in rawIndex
+                int square = (groupOffset[g] == 8) ? 48 : 64;
+                for (int k = groupSize[g]; k >= 1; k--) {
+                    do {
+                        square--;
+                    } while (CHOOSE[square][k] > combination);
+                    combination -= CHOOSE[square][k];
+                    squares[groupStart[g] + k - 1] = square + groupOffset[g];
+                }
+            }
+            int[] kings = KING_SQUARES[mode];
+            int pair = kings[(int) (index % kings.length)];
+            squares[0] = pair / 64;
+            squares[blackKing] = pair % 64;
+            return (int) (index / kings.length);
+        }
+
+        /**
+         * @return the index of a position whose kings are already in place, sorting each
+         * group's squares
+         */
+        private long rawIndex(int[] squares, int turn) {
+            int kings = KINGS[mode][squares[0] * 64 + squares[blackKing]];
+            if (kings < 0) {
+                return -1;
+            }
+            long index = (long) turn * KING_SQUARES[mode].length + kings;
+            for (int g = 0; g < groupStart.length; g++) {
+                int start = groupStart[g];
+                int size = groupSize[g];
+                Arrays.sort(squares, start, start + size);
+                long combination = 0;
+                for (int k = 1; k <= size; k++) {
+                    combination += CHOOSE[squares[start + k - 1] - groupOffset[g]][k];
+                }
+                index = index * groupCombinations[g] + combination;
+            }
+            return index;
+        }
+
+        private void flip(int[] squares, int mask) {
+            for (int i = 0; i < count; i++) {
+                squares[i] ^= mask;
+            }
+        }
+
+        private void transpose(int[] squares) {
+            for (int i = 0; i < count; i++) {
+                squares[i] = (file(squares[i]) << 3) | rank(squares[i]);
+            }
+        }
+
+        private static int file(int square) {
+            return square & 7;
+        }
+
+        private static int rank(int square) {
+            return square >>> 3;
+        }
+    }
+
+    /**
+     * One mapped table file
+     */
+    private static final class Table {
+
+        private final Layout layout;
+        private final MappedByteBuffer buffer;
+
+        Table(Path file, String signature) throws IOException {
+            int count = signature.length() - 1;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                int[] pieces = new int[count];
+                for (int i = 0; i < count; i++) {
+                    pieces[i] = header.get(5 + i);
+                }
+                if (header.getInt(0) != MAGIC || header.get(4) != count
+                        || !signature.equals(signature(pieces, count))) {
+                    throw new IOException("Not a " + signature + " tablebase: " + file);
+                }
+                layout = new Layout(pieces, count);
+                // The biggest table of MAX_PIECES is 1.4 GB, so one mapping holds any file
+                if (size != HEADER_BYTES + 2 * layout.positions() || size > Integer.MAX_VALUE) {
+                    throw new IOException("Not a " + signature + " tablebase: " + file);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+
+        int read(long index) {
+            return buffer.getShort((int) (HEADER_BYTES + 2 * index));
+        }
+    }
+}
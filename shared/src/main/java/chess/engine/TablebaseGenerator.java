@@ -0,0 +1,612 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes the {@link Tablebase} files for a set of material by retrograde analysis:
+ * starting from checkmates and from captures and promotions into smaller tables, whose
+ * results are looked up, results are traced backwards move by move until nothing more
+ * can be decided. Tables that captures and promotions lead to are generated first.
+ * <p>
+ * A table is built in memory, 4 bytes per position in the {@link Tablebase.Layout} the
+ * file uses. Rather than queueing positions as they are decided, each pass goes over the
+ * whole table for the positions decided in the pass before, so nothing else is kept.
+ * The largest tables of {@link #MAX_PIECES}, with a pawn, take about 3 GB.
+ * <p>
+ * Run from the command line as {@code TablebaseGenerator directory signature...}, e.g.
+ * {@code TablebaseGenerator tables KQvK KRvK KPvK}.
+ */
+public final class TablebaseGenerator {
+
+    public static final int MAX_PIECES = Tablebase.MAX_PIECES;
+
+    // What is known about each position while generating
+    private static final byte UNKNOWN = 0;
+    private static final byte WIN = 1;
+    private static final byte LOSS = 2;
+    private static final byte DRAW = 3;
+    private static final byte INVALID = 4;
+
+    private static final int MAX_MOVES = 256;
+    private static final int[] PROMOTIONS = {ChessPiece.PieceType.QUEEN.ordinal(), ChessPiece.PieceType.ROOK.ordinal(),
+            ChessPiece.PieceType.BISHOP.ordinal(), ChessPiece.PieceType.KNIGHT.ordinal()};
+
+    private final Path directory;
+    private final Tablebase tablebase;
+
+    // The table being generated
+    private int count;
+    private int[] pieces;
+    private Tablebase.Layout layout;
+    private byte[] wdl;
+    // While finding wins and losses, the pass that decided each one
+    private short[] dtz;
+
+    // The position being looked at, and the moves out of it
+    private final int[] squares = new int[MAX_PIECES];
+    private final int[] scratch = new int[MAX_PIECES];
+    private final long[] nextIndex = new long[MAX_MOVES];
+    private final int[] nextValue = new int[MAX_MOVES];
+    private final boolean[] zeroing = new boolean[MAX_MOVES];
+    private final long[] distinct = new long[MAX_MOVES];
+    private final int[] otherPieces = new int[MAX_PIECES];
+    private final int[] otherSquares = new int[MAX_PIECES];
+
+    /**
+     * @param directory the folder to write the {@code .tb} files to
+     */
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+        this.tablebase = new Tablebase(directory);
+    }
+
+    /**
+     * Writes the table for a set of material, and every smaller table it needs, unless
+     * the files are already there
+     *
+     * @param signature the pieces of each team, WHITE first, e.g. {@code KRvK}
+     * @return the table file
+     * @throws IllegalArgumentException if the signature is not two teams with one king
+     *                                  each and at most {@link #MAX_PIECES} pieces
+     * @throws IOException              if the file can't be written
+     */
+    public Path generate(String signature) throws IOException {
+        int[] material = parse(signature);
+        Tablebase.canonicalize(material, new int[material.length], material.length, 0);
+        Path file = directory.resolve(Tablebase.signature(material, material.length) + Tablebase.EXTENSION);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+
+        // Tables reached by a capture or a promotion
+        for (int i = 0; i < material.length; i++) {
+            int type = material[i] % 6;
+            if (type != ChessPiece.PieceType.KING.ordinal()) {
+                generate(without(material, i));
+            }
+            if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+                for (int promotion : PROMOTIONS) {
+                    int[] promoted = material.clone();
+                    promoted[i] = material[i] - type + promotion;
+                    generate(promoted);
+                }
+            }
+        }
+
+        Files.createDirectories(directory);
+        build(material);
+        write(file);
+        wdl = null;
+        dtz = null;
+        return file;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TablebaseGenerator directory signature...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            long start = System.nanoTime();
+            Path file = generator.generate(args[i]);
+            System.out.printf("%s in %.1f s%n", file, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private void generate(int[] material) throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int piece : material) {
+            if (piece == 6 * ChessGame.TeamColor.BLACK.ordinal()) {
+                name.append('v');
+            }
+            name.append(Tablebase.LETTERS.charAt(piece % 6));
+        }
+        generate(name.toString());
+    }
+
+    private static int[] without(int[] material, int skip) {
+        int[] fewer = new int[material.length - 1];
+        for (int i = 0, j = 0; i < material.length; i++) {
+            if (i != skip) {
+                fewer[j++] = material[i];
+            }
+        }
+        return fewer;
+    }
+
+    /**
+     * @return the pieces of a signature as TeamColor ordinal * 6 + PieceType ordinal
+     */
+    private static int[] parse(String signature) {
+        String[] sides = signature.toUpperCase().split("V");
+        if (sides.length != 2 || signature.length() - 1 > MAX_PIECES) {
+            throw new IllegalArgumentException("Expected a signature like KRvK with at most " + MAX_PIECES
+                    + " pieces: " + signature);
+        }
+        int[] material = new int[signature.length() - 1];
+        int index = 0;
+        for (int color = 0; color < 2; color++) {
+            int kings = 0;
+            for (char letter : sides[color].toCharArray()) {
+                int type = Tablebase.LETTERS.indexOf(letter);
+                if (type < 0) {
+                    throw new IllegalArgumentException("Unknown piece " + letter + " in " + signature);
+                }
+                if (type == ChessPiece.PieceType.KING.ordinal()) {
+                    kings++;
+                }
+                material[index++] = color * 6 + type;
+            }
+            if (kings != 1) {
+                throw new IllegalArgumentException("Each team needs one king: " + signature);
+            }
+        }
+        return material;
+    }
+
+    /**
+     * Scores every position of a table: first win, loss or draw, then the DTZ of the wins
+     * and losses. Both steps start from the positions whose result is clear from their
+     * own moves and work backwards through the moves that lead to them, one pass per
+     * move, so each position is only looked at again when one it leads to has been
+     * decided.
+     * <p>
+     * Moves are counted by the positions they reach rather than one by one: two moves can
+     * reach copies of the same stored position, and working backwards from it finds each
+     * earlier position once.
+     */
+    private void build(int[] material) {
+        count = material.length;
+        pieces = material;
+        layout = new Tablebase.Layout(material, count);
+        if (layout.positions() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many positions in " + Tablebase.signature(material, count));
+        }
+        int size = (int) layout.positions();
+        wdl = new byte[size];
+        dtz = new short[size];
+        byte[] pending = new byte[size];
+
+        // A position is won if a move reaches a lost one, and lost once every move reaches
+        // a won one. Pending counts the positions reached that are not known to lose yet.
+        for (int index = 0; index < size; index++) {
+            wdl[index] = valid(index) ? UNKNOWN : INVALID;
+        }
+        for (int index = 0; index < size; index++) {
+            if (wdl[index] == INVALID) {
+                continue;
+            }
+            int moves = moves(index);
+            int open = distinct(moves, false);
+            boolean win = false;
+            for (int i = 0; i < moves; i++) {
+                if (nextIndex[i] < 0 && nextValue[i] == 0) {
+                    open++;
+                } else if (nextIndex[i] < 0 && nextValue[i] < 0) {
+                    win = true;
+                }
+            }
+            if (win) {
+                wdl[index] = WIN;
+            } else if (open == 0) {
+                wdl[index] = (moves == 0 && !inCheck(index)) ? DRAW : LOSS;
+            } else {
+                pending[index] = (byte) open;
+            }
+        }
+        boolean decided = true;
+        for (int pass = 0; decided; pass++) {
+            decided = false;
+            for (int index = 0; index < size; index++) {
+                if ((wdl[index] != WIN && wdl[index] != LOSS) || dtz[index] != pass) {
+                    continue;
+                }
+                int unmoves = unmoves(index, false);
+                for (int i = 0; i < unmoves; i++) {
+                    int previous = (int) nextIndex[i];
+                    if (wdl[previous] != UNKNOWN) {
+                        continue;
+                    }
+                    if (wdl[index] == LOSS) {
+                        wdl[previous] = WIN;
+                    } else if (--pending[previous] == 0) {
+                        wdl[previous] = LOSS;
+                    } else {
+                        continue;
+                    }
+                    dtz[previous] = (short) (pass + 1);
+                    decided = true;
+                }
+            }
+        }
+
+        // DTZ counts up from checkmates (0) and from zeroing moves that keep the win (1).
+        // Taking positions in order of DTZ, a win takes the first lost position it can
+        // move to, and a loss takes the last won one once all of its other moves are known.
+        int deepest = 1;
+        for (int index = 0; index < size; index++) {
+            dtz[index] = -1;
+            if (wdl[index] == UNKNOWN) {
+                wdl[index] = DRAW;
+            } else if (wdl[index] == WIN || wdl[index] == LOSS) {
+                int moves = moves(index);
+                int quiet = distinct(moves, true);
+                boolean zeroingWin = false;
+                for (int i = 0; i < moves; i++) {
+                    if (zeroing[i] && result(i) == LOSS) {
+                        zeroingWin = true;
+                    }
+                }
+                if (wdl[index] == WIN && zeroingWin) {
+                    dtz[index] = 1;
+                } else if (wdl[index] == LOSS) {
+                    pending[index] = (byte) quiet;
+                    if (quiet == 0) {
+                        dtz[index] = (short) (moves == 0 ? 0 : 1);
+                    }
+                }
+            }
+        }
+        for (int distance = 0; distance <= deepest; distance++) {
+            for (int index = 0; index < size; index++) {
+                if (dtz[index] != distance) {
+                    continue;
+                }
+                int unmoves = unmoves(index, true);
+                for (int i = 0; i < unmoves; i++) {
+                    int previous = (int) nextIndex[i];
+                    if (dtz[previous] >= 0) {
+                        continue;
+                    }
+                    if ((wdl[index] == LOSS && wdl[previous] == WIN)
+                            || (wdl[index] == WIN && wdl[previous] == LOSS && --pending[previous] == 0)) {
+                        dtz[previous] = (short) (distance + 1);
+                        deepest = distance + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the different positions of this table that the moves listed reach
+     *
+     * @param quietOnly leave out pawn moves
+     */
+    private int distinct(int moves, boolean quietOnly) {
+        int reached = 0;
+        for (int i = 0; i < moves; i++) {
+            if (nextIndex[i] >= 0 && !(quietOnly && zeroing[i])) {
+                distinct[reached++] = nextIndex[i];
+            }
+        }
+        Arrays.sort(distinct, 0, reached);
+        int different = 0;
+        for (int i = 0; i < reached; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                different++;
+            }
+        }
+        return different;
+    }
+
+    /**
+     * @return what is known of the position move i reaches, for the team that moves next
+     */
+    private byte result(int move) {
+        if (nextIndex[move] >= 0) {
+            return wdl[(int) nextIndex[move]];
+        }
+        int value = nextValue[move];
+        return (value > 0) ? WIN : (value == 0 ? DRAW : LOSS);
+    }
+
+    /**
+     * Sets out the position at an index in squares
+     *
+     * @return the TeamColor ordinal of the team to move
+     */
+    private int decode(int index) {
+        return layout.position(index, squares);
+    }
+
+    /**
+     * @return true unless pieces share a square, a pawn is on its first or last row, the
+     * position is stored under another index, or the team that just moved is in check
+     */
+    private boolean valid(int index) {
+        int turn = decode(index);
+        long occupied = 0L;
+        for (int i = 0; i < count; i++) {
+            long bit = Bitboard.bit(squares[i]);
+            if ((occupied & bit) != 0) {
+                return false;
+            }
+            if (pieces[i] % 6 == ChessPiece.PieceType.PAWN.ordinal() && (bit & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0) {
+                return false;
+            }
+            occupied |= bit;
+        }
+        if (layout.index(squares, turn, scratch) != index) {
+            return false;
+        }
+        int waiting = 1 - turn;
+        return !attacked(squares[king(waiting)], 1 - waiting, occupied, -1);
+    }
+
+    private boolean inCheck(int index) {
+        int turn = decode(index);
+        return attacked(squares[king(turn)], 1 - turn, occupancy(), -1);
+    }
+
+    /**
+     * Lists the legal moves of a position into nextIndex, nextValue and zeroing. A move
+     * that stays in this table gets the index of the position it reaches; a capture or
+     * promotion gets the value of that position from the smaller table.
+     *
+     * @return the number of legal moves
+     */
+    private int moves(int index) {
+        int turn = decode(index);
+        long occupied = occupancy();
+        long own = 0L;
+        for (int i = 0; i < count; i++) {
+            if (pieces[i] / 6 == turn) {
+                own |= Bitboard.bit(squares[i]);
+            }
+        }
+        ChessGame.TeamColor color = ChessGame.TeamColor.values()[turn];
+        int king = king(turn);
+
+        int moves = 0;
+        for (int i = 0; i < count; i++) {
+            if (pieces[i] / 6 != turn) {
+                continue;
+            }
+            int type = pieces[i] % 6;
+            int from = squares[i];
+            long targets = targets(type, color, from, occupied, own);
+            while (targets != 0) {
+                int to = Bitboard.first(targets);
+                targets &= targets - 1;
+                int captured = pieceOn(to);
+
+                squares[i] = to;
+                boolean legal = !attacked(squares[king], 1 - turn, (occupied ^ Bitboard.bit(from)) | Bitboard.bit(to),
+                        captured);
+                if (legal) {
+                    boolean promotes = type == ChessPiece.PieceType.PAWN.ordinal()
+                            && (Bitboard.bit(to) & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0;
+                    if (promotes) {
+                        for (int promotion : PROMOTIONS) {
+                            nextIndex[moves] = -1;
+                            nextValue[moves] = otherTable(captured, i, turn * 6 + promotion, 1 - turn);
+                            zeroing[moves++] = true;
+                        }
+                    } else if (captured >= 0) {
+                        nextIndex[moves] = -1;
+                        nextValue[moves] = otherTable(captured, i, pieces[i], 1 - turn);
+                        zeroing[moves++] = true;
+                    } else {
+                        nextIndex[moves] = layout.index(squares, 1 - turn, scratch);
+                        zeroing[moves++] = (type == ChessPiece.PieceType.PAWN.ordinal());
+                    }
+                }
+                squares[i] = from;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Lists into nextIndex the positions of this table that lead to a position by one
+     * move that is not a capture or a promotion, since those come from bigger tables.
+     * Each earlier position is listed once, even if it has more than one such move.
+     *
+     * @param quietOnly leave out pawn moves
+     * @return the number of earlier positions
+     */
+    private int unmoves(int index, boolean quietOnly) {
+        int moved = 1 - decode(index);
+        long occupied = occupancy();
+        ChessGame.TeamColor color = ChessGame.TeamColor.values()[moved];
+        int back = (moved == ChessGame.TeamColor.WHITE.ordinal()) ? -8 : 8;
+
+        int unmoves = 0;
+        for (int i = 0; i < count; i++) {
+            if (pieces[i] / 6 != moved) {
+                continue;
+            }
+            int type = pieces[i] % 6;
+            int to = squares[i];
+            long origins;
+            if (type != ChessPiece.PieceType.PAWN.ordinal()) {
+                origins = attacks(type, color, to, occupied) & ~occupied;
+            } else if (quietOnly) {
+                continue;
+            } else {
+                // One step back, or two back to the start row, through empty squares
+                origins = Bitboard.bit(to + back) & ~occupied & ~(Bitboard.RANK_1 | Bitboard.RANK_8);
+                if (origins != 0 && (Attacks.pawnDoublePush(color, to + 2 * back) & Bitboard.bit(to)) != 0) {
+                    origins |= Bitboard.bit(to + 2 * back) & ~occupied;
+                }
+            }
+            while (origins != 0) {
+                squares[i] = Bitboard.first(origins);
+                origins &= origins - 1;
+                long previous = layout.index(squares, moved, scratch);
+                if (previous >= 0 && wdl[(int) previous] != INVALID) {
+                    nextIndex[unmoves++] = previous;
+                }
+            }
+            squares[i] = to;
+        }
+        Arrays.sort(nextIndex, 0, unmoves);
+        int different = 0;
+        for (int i = 0; i < unmoves; i++) {
+            if (i == 0 || nextIndex[i] != nextIndex[i - 1]) {
+                nextIndex[different++] = nextIndex[i];
+            }
+        }
+        return different;
+    }
+
+    private static long targets(int type, ChessGame.TeamColor color, int from, long occupied, long own) {
+        if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+            long targets = Attacks.pawn(color, from) & occupied & ~own;
+            long push = Attacks.pawnPush(color, from) & ~occupied;
+            if (push != 0) {
+                targets |= push | (Attacks.pawnDoublePush(color, from) & ~occupied);
+            }
+            return targets;
+        }
+        return attacks(type, color, from, occupied) & ~own;
+    }
+
+    private static long attacks(int type, ChessGame.TeamColor color, int from, long occupied) {
+        return switch (ChessPiece.PieceType.values()[type]) {
+            case KING -> Attacks.king(from);
+            case QUEEN -> Attacks.queen(from, occupied);
+            case BISHOP -> Attacks.bishop(from, occupied);
+            case KNIGHT -> Attacks.knight(from);
+            case ROOK -> Attacks.rook(from, occupied);
+            case PAWN -> Attacks.pawn(color, from);
+        };
+    }
+
+    /**
+     * @return true if a piece of team {@code by}, other than piece {@code skip}, attacks the square
+     */
+    private boolean attacked(int square, int by, long occupied, int skip) {
+        ChessGame.TeamColor color = ChessGame.TeamColor.values()[by];
+        for (int i = 0; i < count; i++) {
+            if (i != skip && pieces[i] / 6 == by
+                    && (attacks(pieces[i] % 6, color, squares[i], occupied) & Bitboard.bit(square)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the position after a capture or promotion in its smaller table
+     *
+     * @param captured the piece taken, or -1
+     * @param mover    the piece that moved, already on its new square
+     * @param becomes  what the moving piece is afterwards
+     * @param turn     the team to move afterwards
+     */
+    private int otherTable(int captured, int mover, int becomes, int turn) {
+        int remaining = 0;
+        for (int i = 0; i < count; i++) {
+            if (i != captured) {
+                otherPieces[remaining] = (i == mover) ? becomes : pieces[i];
+                otherSquares[remaining++] = squares[i];
+            }
+        }
+        int value = tablebase.lookup(otherPieces, otherSquares, remaining, turn);
+        if (value == Tablebase.MISSING || value == Tablebase.INVALID) {
+            throw new IllegalStateException("No tablebase value for a position with "
+                    + Tablebase.signature(otherPieces, remaining));
+        }
+        return value;
+    }
+
+    private int king(int color) {
+        for (int i = 0; i < count; i++) {
+            if (pieces[i] == color * 6 + ChessPiece.PieceType.KING.ordinal()) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No king in " + Tablebase.signature(pieces, count));
+    }
+
+    private int pieceOn(int square) {
+        for (int i = 0; i < count; i++) {
+            if (squares[i] == square) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long occupancy() {
+        long occupied = 0L;
+        for (int i = 0; i < count; i++) {
+            occupied |= Bitboard.bit(squares[i]);
+        }
+        return occupied;
+    }
+
+    /**
+     * Writes the finished table to a temporary file and then moves it into place, so
+     * a Tablebase never maps half a file
+     */
+    private void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(Tablebase.MAGIC).put((byte) count);
+            for (int i = 0; i < count; i++) {
+                buffer.put((byte) pieces[i]);
+            }
+            buffer.position(Tablebase.HEADER_BYTES);
+            for (int index = 0; index < wdl.length; index++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putShort((short) value(index));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int value(int index) {
+        return switch (wdl[index]) {
+            case WIN -> dtz[index];
+            case LOSS -> -dtz[index] - 1;
+            case INVALID -> Tablebase.INVALID;
+            default -> 0;
+        };
+    }
+}
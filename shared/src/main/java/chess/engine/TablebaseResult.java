@@ -0,0 +1,59 @@
+package chess.engine;
+
+/**
+ * The exact result of an endgame position found in a {@link Tablebase}
+ */
+public final class TablebaseResult {
+
+    /**
+     * How the game ends with best play, for the team to move
+     */
+    public enum Outcome {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    private final Outcome outcome;
+    private final int dtz;
+
+    public TablebaseResult(Outcome outcome, int dtz) {
+        this.outcome = outcome;
+        this.dtz = dtz;
+    }
+
+    /**
+     * @return the result with best play by both teams, for the team to move
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the number of moves by either team (plies) until the winning team checkmates
+     * or plays a capture or pawn move that keeps the win, with the losing team holding it
+     * off as long as it can. It is 0 for a draw and for a team that is checkmated.
+     */
+    public int getDtz() {
+        return dtz;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TablebaseResult that = (TablebaseResult) o;
+        return outcome == that.outcome && dtz == that.dtz;
+    }
+
+    @Override
+    public int hashCode() {
+        return outcome.hashCode() * 31 + dtz;
+    }
+
+    @Override
+    public String toString() {
+        return "TablebaseResult{outcome=" + outcome + ", dtz=" + dtz + '}';
+    }
+}
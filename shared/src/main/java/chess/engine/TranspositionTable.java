@@ -0,0 +1,199 @@
+package chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A fixed size hash table of search results, keyed by position (see
+ * {@link chess.ChessGame#zobristKey()}), that any number of search threads can share
+ * without locking.
+ * <p>
+ * Entries live in a {@code long[]}, two longs each: the key XOR'ed with the data, and
+ * the data. A reader recomputes the key from both halves, so an entry torn by two
+ * threads writing at once simply fails to match instead of returning another
+ * position's result. Each bucket holds two entries; on a collision the entry that is
+ * shallowest or left over from the oldest search is replaced.
+ * <p>
+ * The data word packs the best move (bits 0-19), the score (bits 20-35, signed), the
+ * depth (bits 36-43), the bound (bits 44-45) and the search generation (bits 46-53).
+ * {@link #probe} returns it, or 0 for a miss, and the static methods unpack it.
+ */
+public final class TranspositionTable {
+
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 2;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] table;
+    private final int bucketMask;
+    // Read by every store; only changed by whoever runs the searches sharing the table
+    private volatile int generation;
+
+    /**
+     * @param megabytes the most memory to use; the table is rounded down to a power of
+     *                  two number of buckets
+     */
+    public TranspositionTable(int megabytes) {
+        int buckets = capacity(megabytes) / BUCKET_ENTRIES;
+        table = new long[buckets * 2 * BUCKET_ENTRIES];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Works out how many entries a table of a given size holds. Above 8 GB the table
+     * stops growing, since Java arrays cannot hold more longs.
+     *
+     * @param megabytes the most memory to use
+     * @return the number of entries, a power of two
+     */
+    public static int capacity(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_ENTRIES));
+        // The largest power of two whose longs still fit in an array
+        buckets = Math.min(buckets, Long.highestOneBit((Integer.MAX_VALUE - 8) / (2 * BUCKET_ENTRIES)));
+        return (int) buckets * BUCKET_ENTRIES;
+    }
+
+    /**
+     * Starts a new search, so entries from earlier searches are replaced first. Call it
+     * once per search, not once per thread searching.
+     */
+    public synchronized void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table. Not safe while a search is using it.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        generation = 0;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position key
+     * @return the packed data stored for the position, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = bucket(key);
+        for (int i = 0; i < BUCKET_ENTRIES; i++, index += 2) {
+            long data = (long) SLOTS.getOpaque(table, index + 1);
+            if (((long) SLOTS.getOpaque(table, index) ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Records the result of searching a position
+     *
+     * @param key   the position key
+     * @param move  the best move found, or {@link chess.Move#NONE}
+     * @param score the score, with mate scores relative to the root
+     * @param depth the depth searched
+     * @param bound {@link #EXACT}, or {@link #LOWER}/{@link #UPPER} if the score is only a bound
+     * @param ply   how far the position is from the root, to store mate scores relative to it
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int first = bucket(key);
+        int target = first;
+        int worst = Integer.MAX_VALUE;
+        for (int i = 0, index = first; i < BUCKET_ENTRIES; i++, index += 2) {
+            long data = (long) SLOTS.getOpaque(table, index + 1);
+            if (((long) SLOTS.getOpaque(table, index) ^ data) == key || data == 0) {
+                // Keep the old best move if the new result has none
+                if (move == 0 && data != 0) {
+                    move = move(data);
+                }
+                target = index;
+                break;
+            }
+            int age = (generation - generation(data)) & 0xFF;
+            int value = depth(data) - 8 * age;
+            if (value < worst) {
+                worst = value;
+                target = index;
+            }
+        }
+
+        if (Search.isMateScore(score)) {
+            score += (score > 0) ? ply : -ply;
+        }
+        long data = (move & 0xFFFFFL)
+                | (score & 0xFFFFL) << 20
+                | (long) (Math.min(depth, 0xFF) & 0xFF) << 36
+                | (long) bound << 44
+                | (long) generation << 46;
+        SLOTS.setOpaque(table, target, key ^ data);
+        SLOTS.setOpaque(table, target + 1, data);
+    }
+
+    /**
+     * Estimates how full the table is with entries from the current search
+     *
+     * @return the share of entries in use, in thousandths
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, table.length / 2);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = (long) SLOTS.getOpaque(table, 2 * i + 1);
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * @return the best move of packed data
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    /**
+     * @param ply how far the position is from the root
+     * @return the score of packed data, with mate scores relative to the root
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> 20);
+        if (Search.isMateScore(score)) {
+            score -= (score > 0) ? ply : -ply;
+        }
+        return score;
+    }
+
+    /**
+     * @return the depth of packed data
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 36) & 0xFF;
+    }
+
+    /**
+     * @return the bound of packed data: {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 44) & 0x3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 46) & 0xFF;
+    }
+
+    private int bucket(long key) {
+        return ((int) (key >>> 32) & bucketMask) * 2 * BUCKET_ENTRIES;
+    }
+}
@@ -0,0 +1,170 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.engine.AnalysisService;
+import chess.engine.Search;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AnalysisServiceTests {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1";
+
+    private AnalysisService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new AnalysisService(1, 8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Same Position Shares One Analysis")
+    public void coalesce() throws Exception {
+        List<SearchResult> first = new CopyOnWriteArrayList<>();
+        List<SearchResult> second = new CopyOnWriteArrayList<>();
+        CompletableFuture<SearchResult> a = service.analyze(new ChessGame(), 300, first::add);
+        CompletableFuture<SearchResult> b = service.analyze(new ChessGame(), 300, second::add);
+        Assertions.assertEquals(1, service.getAnalyses());
+
+        SearchResult resultA = a.get(5, TimeUnit.SECONDS);
+        SearchResult resultB = b.get(5, TimeUnit.SECONDS);
+        Assertions.assertNotEquals(Move.NONE, resultA.getBestMove());
+        Assertions.assertTrue(resultB.getDepth() >= resultA.getDepth());
+        Assertions.assertFalse(first.isEmpty());
+        Assertions.assertFalse(second.isEmpty());
+        assertIncreasingDepths(first);
+        assertIncreasingDepths(second);
+        // Both requests were fed from the one search, so any depth both saw is the same result
+        for (SearchResult result : second) {
+            for (SearchResult earlier : first) {
+                if (earlier.getDepth() == result.getDepth()) {
+                    Assertions.assertSame(earlier, result);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Late Joiner Streams In Order")
+    public void lateJoinerInOrder() throws Exception {
+        CompletableFuture<SearchResult> first = service.analyze(Fen.parse(KIWIPETE), 400);
+        for (int i = 0; i < 20; i++) {
+            List<SearchResult> late = new CopyOnWriteArrayList<>();
+            service.analyze(Fen.parse(KIWIPETE), 20, late::add).get(5, TimeUnit.SECONDS);
+            assertIncreasingDepths(late);
+        }
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("A Failing Callback Only Fails Its Own Request")
+    public void failingCallback() throws Exception {
+        List<SearchResult> progress = new CopyOnWriteArrayList<>();
+        CompletableFuture<SearchResult> good = service.analyze(Fen.parse(KIWIPETE), 400, progress::add);
+        CompletableFuture<SearchResult> bad = service.analyze(Fen.parse(KIWIPETE), 400, result -> {
+            throw new IllegalStateException("Observer broke");
+        });
+
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> bad.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, error.getCause());
+        SearchResult result = good.get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(result.getDepth() > 1);
+        Assertions.assertFalse(progress.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Results Stream By Depth")
+    public void streaming() throws Exception {
+        List<SearchResult> progress = new CopyOnWriteArrayList<>();
+        SearchResult result = service.analyze(Fen.parse(KIWIPETE), 300, progress::add).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertTrue(progress.size() >= 2, "Expected several depths, got " + progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+            Assertions.assertEquals(i + 1, progress.get(i).getDepth());
+        }
+        Assertions.assertTrue(result.getDepth() >= progress.get(progress.size() - 1).getDepth());
+    }
+
+    @Test
+    @DisplayName("Budget Ends The Request")
+    public void budget() throws Exception {
+        long start = System.nanoTime();
+        SearchResult result = service.analyze(new ChessGame(), 200).get(5, TimeUnit.SECONDS);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertTrue(millis >= 150 && millis < 3000, "Took " + millis + " ms for a 200 ms budget");
+        Assertions.assertTrue(result.getDepth() > 0);
+        waitForIdle();
+    }
+
+    @Test
+    @DisplayName("Positions Wait For A Thread")
+    public void boundedPool() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<SearchResult> first = service.analyze(new ChessGame(), 200);
+        CompletableFuture<SearchResult> second = service.analyze(Fen.parse(KIWIPETE), 200);
+        Assertions.assertEquals(2, service.getAnalyses());
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(millis >= 350, "The second position did not wait for the only thread: " + millis + " ms");
+    }
+
+    @Test
+    @DisplayName("Mate Ends The Analysis Early")
+    public void mateFinishesEarly() throws Exception {
+        SearchResult result = service.analyze(Fen.parse(MATE_IN_ONE), 30_000).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals("d1d8", Move.toUci(result.getBestMove()));
+        Assertions.assertTrue(Search.isMateScore(result.getScore()));
+        waitForIdle();
+    }
+
+    @Test
+    @DisplayName("Cancel Stops The Search")
+    public void cancel() throws Exception {
+        CompletableFuture<SearchResult> request = service.analyze(new ChessGame(), 30_000);
+        Thread.sleep(50);
+        request.cancel(false);
+        waitForIdle();
+
+        // The next request starts a fresh analysis rather than joining the stopped one
+        SearchResult result = service.analyze(new ChessGame(), 100).get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(result.getDepth() > 0);
+    }
+
+    private static void assertIncreasingDepths(List<SearchResult> results) {
+        for (int i = 1; i < results.size(); i++) {
+            Assertions.assertTrue(results.get(i).getDepth() > results.get(i - 1).getDepth(),
+                    "Depth " + results.get(i).getDepth() + " came after depth " + results.get(i - 1).getDepth());
+        }
+    }
+
+    private void waitForIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getAnalyses() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(0, service.getAnalyses(), "The analysis did not stop");
+    }
+}
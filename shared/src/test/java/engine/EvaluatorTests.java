@@ -0,0 +1,120 @@
+package engine;
+
+import chess.*;
+import chess.engine.Evaluator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EvaluatorTests {
+
+    private static final String[] POSITIONS = {
+            Fen.START,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    };
+
+    @Test
+    @DisplayName("Start Position Is Even")
+    public void startIsEven() {
+        Assertions.assertEquals(0, Evaluator.evaluate(Fen.parse(Fen.START)));
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score The Same")
+    public void mirrorSymmetry() {
+        for (String fen : POSITIONS) {
+            Assertions.assertEquals(Evaluator.evaluate(Fen.parse(fen)), Evaluator.evaluate(Fen.parse(mirror(fen))),
+                    "Mirror of " + fen + " scored differently");
+        }
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches Rebuilt Board")
+    public void incrementalMatchesRebuild() {
+        Random random = new Random(240);
+        MoveList moves = new MoveList();
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parse(fen);
+            for (int ply = 0; ply < 60; ply++) {
+                moves.clear();
+                int count = game.legalMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(count)));
+
+                ChessBoard rebuilt = new ChessBoard();
+                for (int square = 0; square < 64; square++) {
+                    ChessPiece piece = game.getBoard().getPiece(square);
+                    if (piece != null) {
+                        rebuilt.addPiece(new ChessPosition(square / 8 + 1, square % 8 + 1), piece);
+                    }
+                }
+                Assertions.assertEquals(rebuilt.getMaterialScore(), game.getBoard().getMaterialScore(),
+                        "Score drifted after " + Fen.toFen(game));
+                Assertions.assertEquals(rebuilt.getPhase(), game.getBoard().getPhase());
+            }
+            while (game.getUndoDepth() > 0) {
+                game.undoMove();
+            }
+            Assertions.assertEquals(Fen.parse(fen).getBoard().getMaterialScore(), game.getBoard().getMaterialScore(),
+                    "Score drifted after undoing every move");
+        }
+    }
+
+    @Test
+    @DisplayName("Centralized Knight Scores Better")
+    public void prefersCentralKnight() {
+        int corner = Evaluator.evaluate(Fen.parse("4k3/8/8/8/8/8/8/N3K3 w - - 0 1"));
+        int center = Evaluator.evaluate(Fen.parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1"));
+        Assertions.assertTrue(center > corner, "Knight on d4 scored " + center + ", on a1 " + corner);
+    }
+
+    @Test
+    @DisplayName("King Centralizes In The Endgame")
+    public void kingCentralizesInEndgame() {
+        int home = Evaluator.evaluate(Fen.parse("4k3/pppp4/8/8/8/8/PPPP4/6K1 w - - 0 1"));
+        int center = Evaluator.evaluate(Fen.parse("4k3/pppp4/8/8/3K4/8/PPPP4/8 w - - 0 1"));
+        Assertions.assertTrue(center > home, "Central king scored " + center + ", home king " + home);
+    }
+
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] rows = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = rows.length - 1; i >= 0; i--) {
+            placement.append(swapCase(rows[i]));
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        String turn = fields[1].equals("w") ? "b" : "w";
+        String castling = fields[2].equals("-") ? "-" : sortCastling(swapCase(fields[2]));
+        String enPassant = fields[3].equals("-") ? "-"
+                : "" + fields[3].charAt(0) + (char) ('1' + '8' - fields[3].charAt(1));
+        return placement + " " + turn + " " + castling + " " + enPassant + " " + fields[4] + " " + fields[5];
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder swapped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            swapped.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return swapped.toString();
+    }
+
+    private static String sortCastling(String castling) {
+        StringBuilder sorted = new StringBuilder();
+        for (char c : "KQkq".toCharArray()) {
+            if (castling.indexOf(c) >= 0) {
+                sorted.append(c);
+            }
+        }
+        return sorted.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.engine.InfiniteAnalysis;
+import chess.engine.Search;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class InfiniteAnalysisTests {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Streams Each Depth Until Stopped")
+    public void streamsUntilStopped() throws Exception {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        try (InfiniteAnalysis analysis = new InfiniteAnalysis(Fen.parse(KIWIPETE), 2)) {
+            analysis.subscribe(recorder);
+            analysis.start();
+            waitFor(() -> recorder.results.size() >= 3);
+            analysis.stop();
+
+            Assertions.assertTrue(recorder.completed.await(10, TimeUnit.SECONDS), "The analysis did not stop");
+            Assertions.assertFalse(analysis.isRunning());
+            Assertions.assertSame(recorder.results.get(recorder.results.size() - 1), analysis.getLatest());
+        }
+
+        List<SearchResult> results = recorder.results;
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(2, results.get(i).getVariations().size());
+            if (i > 0) {
+                Assertions.assertTrue(results.get(i).getDepth() >= results.get(i - 1).getDepth());
+            }
+        }
+        Assertions.assertEquals(1, results.get(0).getDepth());
+        Assertions.assertNull(recorder.error);
+    }
+
+    @Test
+    @DisplayName("Ends By Itself At Mate")
+    public void endsAtMate() throws Exception {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        InfiniteAnalysis analysis = new InfiniteAnalysis(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), 1);
+        analysis.subscribe(recorder);
+        analysis.start();
+
+        Assertions.assertTrue(recorder.completed.await(10, TimeUnit.SECONDS), "The analysis did not end");
+        SearchResult last = recorder.results.get(recorder.results.size() - 1);
+        Assertions.assertEquals("a1a8", Move.toUci(last.getBestMove()));
+        Assertions.assertTrue(Search.isMateScore(last.getScore()));
+        Assertions.assertThrows(IllegalStateException.class, analysis::start);
+    }
+
+    @Test
+    @DisplayName("Stops When Everyone Leaves")
+    public void stopsWithoutSubscribers() throws Exception {
+        InfiniteAnalysis analysis = new InfiniteAnalysis(new ChessGame(), 1);
+        Recorder recorder = new Recorder(1);
+        analysis.subscribe(recorder);
+        analysis.start();
+
+        waitFor(() -> !analysis.isRunning());
+        Assertions.assertEquals(1, recorder.results.size());
+        Assertions.assertTrue(analysis.getLatest().getDepth() >= 1);
+    }
+
+    @Test
+    @DisplayName("Stops Mid Depth When Everyone Leaves")
+    public void stopsPromptly() throws Exception {
+        InfiniteAnalysis analysis = new InfiniteAnalysis(Fen.parse(KIWIPETE), 1);
+        Recorder first = new Recorder(Long.MAX_VALUE);
+        Recorder second = new Recorder(Long.MAX_VALUE);
+        analysis.subscribe(first);
+        analysis.subscribe(second);
+        analysis.start();
+        waitFor(() -> first.results.size() >= 5);
+
+        first.subscription.cancel();
+        Thread.sleep(50);
+        Assertions.assertTrue(analysis.isRunning(), "Stopped while a subscriber was left");
+
+        long start = System.nanoTime();
+        second.subscription.cancel();
+        waitFor(() -> !analysis.isRunning());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(millis < 1000, "Took " + millis + " ms to stop");
+    }
+
+    @Test
+    @DisplayName("Stops When Every Subscriber Throws")
+    public void stopsWhenSubscribersThrow() throws Exception {
+        InfiniteAnalysis analysis = new InfiniteAnalysis(Fen.parse(KIWIPETE), 1);
+        Recorder recorder = new Recorder(Long.MAX_VALUE) {
+            @Override
+            public void onNext(SearchResult item) {
+                super.onNext(item);
+                if (results.size() == 3) {
+                    throw new IllegalStateException("Subscriber broke");
+                }
+            }
+        };
+        analysis.subscribe(recorder);
+        analysis.start();
+
+        Assertions.assertTrue(recorder.completed.await(10, TimeUnit.SECONDS), "Subscriber was not dropped");
+        Assertions.assertInstanceOf(IllegalStateException.class, recorder.error);
+        waitFor(() -> !analysis.isRunning());
+        Assertions.assertEquals(3, recorder.results.size());
+    }
+
+    @Test
+    @DisplayName("Closed Before Starting")
+    public void closedBeforeStarting() throws Exception {
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        InfiniteAnalysis analysis = new InfiniteAnalysis(new ChessGame(), 1);
+        analysis.subscribe(recorder);
+        analysis.close();
+
+        Assertions.assertTrue(recorder.completed.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(recorder.results.isEmpty());
+        Assertions.assertNull(analysis.getLatest());
+        Assertions.assertThrows(IllegalStateException.class, analysis::start);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Records results, cancelling after a given number of them
+     */
+    private static class Recorder implements Flow.Subscriber<SearchResult> {
+
+        final List<SearchResult> results = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final long wanted;
+        volatile Throwable error;
+        volatile Flow.Subscription subscription;
+
+        Recorder(long wanted) {
+            this.wanted = wanted;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(wanted);
+        }
+
+        @Override
+        public void onNext(SearchResult item) {
+            results.add(item);
+            if (results.size() == wanted) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
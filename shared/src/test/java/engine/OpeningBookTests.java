@@ -0,0 +1,229 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.engine.BookMove;
+import chess.engine.OpeningBook;
+import chess.engine.PolyglotKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class OpeningBookTests {
+
+    // The tests write their own books, so any table of random numbers will do
+    private static final PolyglotKey KEYS = new PolyglotKey(new SplittableRandom(240).longs(PolyglotKey.RANDOM_COUNT).toArray());
+
+    private static final String CASTLING = "r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("Book Moves For Position")
+    public void movesForPosition() throws IOException {
+        ChessGame start = Fen.parse(Fen.START);
+        List<long[]> entries = filler(500);
+        entries.add(entry(KEYS.key(start), "e2e4", 30));
+        entries.add(entry(KEYS.key(start), "d2d4", 10));
+        OpeningBook book = new OpeningBook(writeBook(entries), KEYS);
+
+        Assertions.assertEquals(502, book.size());
+        List<BookMove> moves = book.moves(start);
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertEquals("e2e4", Move.toUci(moves.get(0).getMove()));
+        Assertions.assertEquals(30, moves.get(0).getWeight());
+        Assertions.assertEquals("d2d4", Move.toUci(moves.get(1).getMove()));
+        Assertions.assertEquals(Fen.START, Fen.toFen(start), "Lookup changed the game");
+
+        Assertions.assertTrue(book.moves(Fen.parse(CASTLING)).isEmpty(), "Found moves for a position not in the book");
+    }
+
+    @Test
+    @DisplayName("Castling And Illegal Book Moves")
+    public void castlingAndIllegalMoves() throws IOException {
+        ChessGame game = Fen.parse(CASTLING);
+        List<long[]> entries = new ArrayList<>();
+        entries.add(entry(KEYS.key(game), "e1h1", 5));
+        entries.add(entry(KEYS.key(game), "e1a1", 4));
+        entries.add(entry(KEYS.key(game), "e2e5", 3));
+        OpeningBook book = new OpeningBook(writeBook(entries), KEYS);
+
+        List<BookMove> moves = book.moves(game);
+        Assertions.assertEquals(2, moves.size(), "The illegal move was not left out");
+        Assertions.assertEquals("e1g1", Move.toUci(moves.get(0).getMove()));
+        Assertions.assertTrue(Move.is(moves.get(0).getMove(), Move.CASTLE));
+        Assertions.assertEquals("e1c1", Move.toUci(moves.get(1).getMove()));
+    }
+
+    @Test
+    @DisplayName("Pick Follows Weights")
+    public void pickFollowsWeights() throws IOException {
+        ChessGame start = Fen.parse(Fen.START);
+        List<long[]> entries = filler(50);
+        entries.add(entry(KEYS.key(start), "e2e4", 3));
+        entries.add(entry(KEYS.key(start), "d2d4", 1));
+        entries.add(entry(KEYS.key(start), "g1f3", 0));
+        OpeningBook book = new OpeningBook(writeBook(entries), KEYS);
+
+        Random random = new Random(7);
+        int e4 = 0;
+        for (int i = 0; i < 4000; i++) {
+            int move = book.pick(start, random);
+            Assertions.assertNotEquals("g1f3", Move.toUci(move), "Picked a move with weight 0");
+            if (Move.toUci(move).equals("e2e4")) {
+                e4++;
+            }
+        }
+        Assertions.assertTrue(e4 > 2800 && e4 < 3200, "e2e4 should be picked about 3 times in 4, was " + e4);
+        Assertions.assertEquals(Move.NONE, book.pick(Fen.parse(CASTLING), random));
+    }
+
+    @Test
+    @DisplayName("Not A Book")
+    public void notABook() throws IOException {
+        Path file = folder.resolve("broken.bin");
+        Files.write(file, new byte[17]);
+        Assertions.assertThrows(IOException.class, () -> new OpeningBook(file, KEYS));
+    }
+
+    @Test
+    @DisplayName("Key Ignores En Passant Nobody Can Take")
+    public void enPassantKey() {
+        Assertions.assertEquals(
+                KEYS.key(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")),
+                KEYS.key(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")));
+        Assertions.assertNotEquals(
+                KEYS.key(Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")),
+                KEYS.key(Fen.parse("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Load Random Table")
+    public void loadTable() throws IOException {
+        StringBuilder text = new StringBuilder("# test table\n");
+        for (int i = 0; i < PolyglotKey.RANDOM_COUNT; i++) {
+            text.append(i % 2 == 0 ? "0x" : "").append(Long.toHexString(-1L - i)).append(i % 4 == 3 ? ",\n" : ", ");
+        }
+        PolyglotKey keys = PolyglotKey.load(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII)));
+        Assertions.assertNotEquals(0L, keys.key(Fen.parse(Fen.START)));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> PolyglotKey.load(new ByteArrayInputStream("1 2 3".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    @DisplayName("Standard Keys Match Polyglot")
+    public void standardKeys() {
+        // Test positions and keys from the Polyglot book format description
+        String[][] positions = {
+                {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "463b96181691fc9c"},
+                {"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "823c9b50fd114196"},
+                {"rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "0756b94461c50fb0"},
+                {"rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", "662fafb965db29d4"},
+                {"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "22a48b5a8e47ff78"},
+                {"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3", "652a607ca3f242c1"},
+                {"rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4", "00fdd303c946bdd9"},
+                {"rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3", "3c8123ea7b067637"},
+                {"rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4", "5c3f9b829b279560"},
+        };
+        PolyglotKey keys = PolyglotKey.standard();
+        for (String[] position : positions) {
+            Assertions.assertEquals(Long.parseUnsignedLong(position[1], 16), keys.key(Fen.parse(position[0])),
+                    "Wrong key for " + position[0]);
+        }
+        Assertions.assertSame(keys, PolyglotKey.standard());
+    }
+
+    @Test
+    @DisplayName("Standard Book Finds Known Entries")
+    public void standardBook() throws IOException {
+        // Entries as a real book stores them, under the published keys
+        List<long[]> entries = filler(100);
+        entries.add(entry(0x463b96181691fc9cL, "e2e4", 100));
+        entries.add(entry(0x463b96181691fc9cL, "d2d4", 80));
+        entries.add(entry(0x823c9b50fd114196L, "c7c5", 50));
+        OpeningBook book = OpeningBook.open(writeBook(entries));
+
+        ChessGame game = Fen.parse(Fen.START);
+        List<BookMove> moves = book.moves(game);
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertEquals("e2e4", Move.toUci(moves.get(0).getMove()));
+
+        game.doMove(moves.get(0).getMove());
+        Assertions.assertEquals("c7c5", Move.toUci(book.moves(game).get(0).getMove()));
+    }
+
+    @Test
+    @DisplayName("Book File Follows A Line")
+    public void bookFile() throws Exception {
+        // A book written outside this code: the line from the Polyglot key examples under
+        // their published keys, among 200 random entries, with learning data filled in
+        Path file = Path.of(OpeningBookTests.class.getResource("polyglot-line.bin").toURI());
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(209, book.size());
+
+        ChessGame game = Fen.parse(Fen.START);
+        List<BookMove> moves = book.moves(game);
+        Assertions.assertEquals(List.of("e2e4", "d2d4", "g1f3"), moves.stream().map(m -> Move.toUci(m.getMove())).toList());
+        Assertions.assertEquals(List.of(100, 80, 0), moves.stream().map(BookMove::getWeight).toList());
+
+        game.doMove(moves.get(0).getMove());
+        moves = book.moves(game);
+        Assertions.assertEquals(List.of("d7d5", "c7c5"), moves.stream().map(m -> Move.toUci(m.getMove())).toList());
+        Assertions.assertEquals(List.of(60, 90), moves.stream().map(BookMove::getWeight).toList());
+
+        game.doMove(moves.get(0).getMove());
+        for (String uci : List.of("e4e5", "f7f5", "e1e2", "e8f7")) {
+            moves = book.moves(game);
+            Assertions.assertEquals(1, moves.size(), "No single book move at " + Fen.toFen(game));
+            Assertions.assertEquals(uci, Move.toUci(moves.get(0).getMove()));
+            game.doMove(moves.get(0).getMove());
+        }
+        Assertions.assertTrue(book.moves(game).isEmpty(), "Found moves past the end of the line");
+    }
+
+    private static long[] entry(long key, String uci, int weight) {
+        int from = Fen.parseSquare(uci.substring(0, 2));
+        int to = Fen.parseSquare(uci.substring(2, 4));
+        return new long[]{key, (from << 6) | to, weight};
+    }
+
+    // Entries for keys of no real position, so lookups have to search
+    private static List<long[]> filler(int count) {
+        SplittableRandom random = new SplittableRandom(11);
+        List<long[]> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new long[]{random.nextLong(), random.nextInt(1 << 12), 1});
+        }
+        return entries;
+    }
+
+    private Path writeBook(List<long[]> entries) throws IOException {
+        entries.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+        Path file = folder.resolve("book.bin");
+        try (OutputStream stream = Files.newOutputStream(file); DataOutputStream out = new DataOutputStream(stream)) {
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeInt(0);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,54 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.engine.ParallelSearch;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSearchTests {
+
+    @Test
+    @DisplayName("Parallel Search Finds Mate")
+    public void findsMate() {
+        try (ParallelSearch search = new ParallelSearch(4, 8)) {
+            SearchResult result = search.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                    SearchLimits.depth(4));
+
+            Assertions.assertEquals("a1a8", Move.toUci(result.getBestMove()));
+            Assertions.assertEquals(Search.MATE - 1, result.getScore());
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel Search Reuses Threads")
+    public void reusesThreads() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        ChessGame game = Fen.parse(fen);
+        try (ParallelSearch search = new ParallelSearch(3, 8)) {
+            for (int i = 0; i < 3; i++) {
+                SearchResult result = search.search(game, SearchLimits.depth(4));
+                Assertions.assertTrue(result.getDepth() >= 4, "Search stopped at depth " + result.getDepth());
+                Assertions.assertNotEquals(Move.NONE, result.getBestMove());
+            }
+        }
+        Assertions.assertEquals(fen, Fen.toFen(game), "Search changed the game");
+    }
+
+    @Test
+    @DisplayName("Parallel Search Respects Time Limit")
+    public void respectsTimeLimit() {
+        try (ParallelSearch search = new ParallelSearch(2, 8)) {
+            long start = System.currentTimeMillis();
+            SearchResult result = search.search(Fen.parse(Fen.START), SearchLimits.time(200));
+
+            Assertions.assertTrue(System.currentTimeMillis() - start < 2000, "Search ran past its time limit");
+            Assertions.assertNotEquals(Move.NONE, result.getBestMove());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.engine.PawnHashTable;
+import chess.engine.PawnStructure;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PawnHashTableTests {
+
+    @Test
+    @DisplayName("Pawn Key Ignores Other Pieces")
+    public void pawnKeyIgnoresPieces() {
+        ChessGame before = Fen.parse("4k3/pp6/8/8/8/8/PP6/R3K3 w - - 0 1");
+        ChessGame after = Fen.parse("3k4/pp6/8/8/8/8/PP6/3RK3 w - - 0 1");
+        ChessGame pushed = Fen.parse("4k3/pp6/8/8/8/P7/1P6/R3K3 w - - 0 1");
+
+        Assertions.assertEquals(before.getBoard().pawnKey(), after.getBoard().pawnKey());
+        Assertions.assertNotEquals(before.getBoard().pawnKey(), pushed.getBoard().pawnKey());
+        Assertions.assertEquals(0, Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 0 1").getBoard().pawnKey());
+    }
+
+    @Test
+    @DisplayName("Pawn Structure Terms")
+    public void pawnStructureTerms() {
+        int even = score("4k3/pppppppp/8/8/8/8/PPPPPPPP/4K3 w - - 0 1");
+        Assertions.assertEquals(0, PawnStructure.midgame(even));
+        Assertions.assertEquals(0, PawnStructure.endgame(even));
+
+        // WHITE's d pawn is passed on the 6th rank
+        int passed = score("4k3/8/3P4/8/8/8/8/4K3 w - - 0 1");
+        Assertions.assertTrue(PawnStructure.endgame(passed) > PawnStructure.midgame(passed));
+        Assertions.assertTrue(PawnStructure.midgame(passed) > 0);
+
+        // BLACK's doubled, isolated pawns against WHITE's connected pair
+        int weak = score("4k3/8/2p5/2p5/8/8/2PP4/4K3 w - - 0 1");
+        int strong = score("4k3/8/8/2pp4/8/8/2PP4/4K3 w - - 0 1");
+        Assertions.assertTrue(PawnStructure.midgame(weak) > PawnStructure.midgame(strong));
+        Assertions.assertTrue(PawnStructure.endgame(weak) > PawnStructure.endgame(strong));
+    }
+
+    @Test
+    @DisplayName("Cached Score Matches Computed Score")
+    public void cachedMatchesComputed() {
+        PawnHashTable table = new PawnHashTable(64);
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int computed = PawnStructure.evaluate(game.getBoard());
+
+        Assertions.assertEquals(computed, table.probe(game.getBoard()));
+        Assertions.assertEquals(computed, table.probe(game.getBoard()));
+        Assertions.assertEquals(2, table.getProbes());
+        Assertions.assertEquals(1, table.getHits());
+        Assertions.assertEquals(0.5, table.hitRate());
+
+        table.resetCounters();
+        Assertions.assertEquals(0, table.getProbes());
+    }
+
+    @Test
+    @DisplayName("Search Mostly Hits Pawn Table")
+    public void searchHitRate() {
+        Search search = new Search();
+        search.search(Fen.parse("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+                SearchLimits.depth(4));
+
+        Assertions.assertTrue(search.getPawnTable().hitRate() > 0.8,
+                "Pawn table hit rate was " + search.getPawnTable().hitRate());
+    }
+
+    private static int score(String fen) {
+        return PawnStructure.evaluate(Fen.parse(fen).getBoard());
+    }
+}
@@ -0,0 +1,196 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.engine.PrincipalVariation;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Back Rank Mate")
+    public void findsMateInOne() {
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(4));
+
+        Assertions.assertEquals("a1a8", Move.toUci(result.getBestMove()));
+        Assertions.assertEquals(Search.MATE - 1, result.getScore());
+        Assertions.assertTrue(Search.isMateScore(result.getScore()));
+    }
+
+    @Test
+    @DisplayName("Finds Scholar's Mate")
+    public void findsScholarsMate() {
+        SearchResult result = search("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+                SearchLimits.depth(3));
+
+        Assertions.assertEquals("h5f7", Move.toUci(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("Takes Hanging Queen")
+    public void takesHangingQueen() {
+        SearchResult result = search("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1", SearchLimits.depth(3));
+
+        Assertions.assertEquals("d1d5", Move.toUci(result.getBestMove()));
+        Assertions.assertTrue(result.getScore() > 400, "Winning the queen should score well");
+    }
+
+    @Test
+    @DisplayName("Does Not Take Defended Pawn With Queen")
+    public void avoidsLosingQueen() {
+        SearchResult result = search("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1", SearchLimits.depth(4));
+
+        Assertions.assertNotEquals("d1d5", Move.toUci(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("No Legal Moves")
+    public void noLegalMoves() {
+        SearchResult result = search("k7/1R6/1K6/8/8/8/8/8 b - - 0 1", SearchLimits.depth(3));
+
+        Assertions.assertEquals(Move.NONE, result.getBestMove());
+        Assertions.assertNull(result.getBestChessMove());
+        Assertions.assertEquals(0, result.getScore(), "Stalemate should score as a draw");
+    }
+
+    @Test
+    @DisplayName("Respects Node Limit")
+    public void respectsNodeLimit() {
+        SearchResult result = search(Fen.START, SearchLimits.nodes(5000));
+
+        Assertions.assertTrue(result.getNodes() <= 5000, "Searched " + result.getNodes() + " nodes");
+        Assertions.assertNotEquals(Move.NONE, result.getBestMove());
+    }
+
+    @Test
+    @DisplayName("Respects Time Limit")
+    public void respectsTimeLimit() {
+        long start = System.currentTimeMillis();
+        SearchResult result = search(Fen.START, SearchLimits.time(200));
+
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2000, "Search ran past its time limit");
+        Assertions.assertTrue(result.getDepth() >= 1);
+    }
+
+    @Test
+    @DisplayName("Leaves Game Unchanged")
+    public void leavesGameUnchanged() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        ChessGame game = Fen.parse(fen);
+        new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(fen, Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Stop From Another Thread")
+    public void stopFromAnotherThread() throws InterruptedException {
+        Search search = new Search();
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            search.stop();
+        });
+        stopper.start();
+        SearchResult result = search.search(Fen.parse(Fen.START), SearchLimits.time(60_000));
+        stopper.join();
+
+        Assertions.assertTrue(result.getTimeMillis() < 10_000, "Search did not stop");
+        Assertions.assertNotEquals(Move.NONE, result.getBestMove());
+    }
+
+    @Test
+    @DisplayName("Principal Variation Is Playable")
+    public void principalVariation() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+
+        PrincipalVariation line = result.getPrincipalVariation();
+        Assertions.assertEquals(1, result.getVariations().size());
+        Assertions.assertEquals(result.getBestMove(), line.getFirstMove());
+        Assertions.assertEquals(result.getScore(), line.getScore());
+        Assertions.assertTrue(line.length() > 1, "Expected replies in the line " + line.toUci());
+        assertPlayable(game, line);
+    }
+
+    @Test
+    @DisplayName("Mate Line Ends In Mate")
+    public void mateLine() {
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        PrincipalVariation line = new Search().search(game, SearchLimits.depth(4)).getPrincipalVariation();
+
+        Assertions.assertEquals("a1a8", line.toUci());
+    }
+
+    @Test
+    @DisplayName("Multi-PV Finds Several Lines")
+    public void multiPv() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        Search search = new Search();
+        search.setMultiPv(3);
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+
+        List<PrincipalVariation> lines = result.getVariations();
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals("d1d5", Move.toUci(lines.get(0).getFirstMove()));
+        Assertions.assertEquals(result.getBestMove(), lines.get(0).getFirstMove());
+        Assertions.assertEquals(result.getScore(), lines.get(0).getScore());
+        Assertions.assertTrue(lines.get(1).getScore() < 0, "Only taking the queen should keep WHITE ahead");
+
+        Set<Integer> firstMoves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            firstMoves.add(lines.get(i).getFirstMove());
+            if (i > 0) {
+                Assertions.assertTrue(lines.get(i).getScore() <= lines.get(i - 1).getScore(), "Lines are not best first");
+            }
+            assertPlayable(game, lines.get(i));
+        }
+        Assertions.assertEquals(3, firstMoves.size(), "Lines should start with different moves");
+    }
+
+    @Test
+    @DisplayName("Multi-PV Limited By Legal Moves")
+    public void multiPvMoreThanMoves() {
+        Search search = new Search();
+        search.setMultiPv(10);
+        SearchResult result = search.search(Fen.parse("k7/8/1K6/8/8/8/8/7R b - - 0 1"), SearchLimits.depth(3));
+
+        MoveList moves = new MoveList();
+        int count = Fen.parse("k7/8/1K6/8/8/8/8/7R b - - 0 1").legalMoves(moves);
+        Assertions.assertEquals(count, result.getVariations().size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> search.setMultiPv(0));
+    }
+
+    private static void assertPlayable(ChessGame position, PrincipalVariation line) {
+        ChessGame game = new ChessGame(position);
+        MoveList moves = new MoveList();
+        for (int move : line.getMoves()) {
+            moves.clear();
+            int count = game.legalMoves(moves);
+            boolean legal = false;
+            for (int i = 0; i < count; i++) {
+                legal |= moves.get(i) == move;
+            }
+            Assertions.assertTrue(legal, Move.toUci(move) + " is not legal in " + line.toUci());
+            game.doMove(move);
+        }
+    }
+
+    private static SearchResult search(String fen, SearchLimits limits) {
+        return new Search().search(Fen.parse(fen), limits);
+    }
+}
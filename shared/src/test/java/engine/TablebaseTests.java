@@ -0,0 +1,381 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.engine.Tablebase;
+import chess.engine.TablebaseGenerator;
+import chess.engine.TablebaseResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+import java.util.ArrayList;
+
+public class TablebaseTests {
+
+    private static final String[] POSITIONS = {
+            "k7/8/1K6/8/8/8/7Q/8 w - - 0 1",
+            "8/8/3k4/8/8/8/8/R3K3 w - - 0 1",
+            "8/8/3k4/8/8/8/8/R3K3 b - - 0 1",
+            "4k3/8/4K3/4P3/8/8/8/8 b - - 0 1",
+            "8/8/8/8/4K3/8/Qk6/8 b - - 0 1",
+            "8/8/8/2k5/8/8/8/K6q w - - 0 1",
+    };
+
+    @TempDir
+    static Path folder;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(folder);
+        generator.generate("KRvK");
+        generator.generate("KvKP");
+        generator.generate("KQvKR");
+        tablebase = new Tablebase(folder);
+    }
+
+    @Test
+    @DisplayName("Tables Written")
+    public void tablesWritten() {
+        for (String name : List.of("KvK", "KQvK", "KRvK", "KBvK", "KNvK", "KPvK", "KQvKR")) {
+            Assertions.assertTrue(Files.isRegularFile(folder.resolve(name + Tablebase.EXTENSION)), "Missing " + name);
+        }
+        Assertions.assertFalse(Files.exists(folder.resolve("KvKP" + Tablebase.EXTENSION)),
+                "Wrote the table for the weaker side");
+    }
+
+    @Test
+    @DisplayName("Tables Store Each Position Once")
+    public void tableSizes() throws IOException {
+        // 462 king placements without pawns and 1806 with them, for each team to move
+        Assertions.assertEquals(16 + 2 * 2 * 462 * 64 * 64, Files.size(folder.resolve("KQvKR" + Tablebase.EXTENSION)));
+        Assertions.assertEquals(16 + 2 * 2 * 462 * 64, Files.size(folder.resolve("KRvK" + Tablebase.EXTENSION)));
+        Assertions.assertEquals(16 + 2 * 2 * 1806 * 48, Files.size(folder.resolve("KPvK" + Tablebase.EXTENSION)));
+    }
+
+    @Test
+    @DisplayName("Queen Against Rook")
+    public void queenAgainstRook() {
+        Assertions.assertEquals(TablebaseResult.Outcome.WIN,
+                tablebase.probe(Fen.parse("7r/k7/8/8/3K4/8/8/3Q4 w - - 0 1")).getOutcome());
+        // Rd8+ skewers the king and wins the queen
+        ChessGame skewer = Fen.parse("7r/k7/8/8/3K4/8/8/3Q4 b - - 0 1");
+        Assertions.assertEquals(TablebaseResult.Outcome.WIN, tablebase.probe(skewer).getOutcome());
+        Assertions.assertEquals("h8d8", Move.toUci(tablebase.bestMove(skewer)));
+        Assertions.assertEquals(tablebase.probe(skewer), tablebase.probe(Fen.parse("3q4/8/8/3k4/8/8/K7/7R w - - 0 1")));
+
+        // Following the best moves, the win counts down until the queen takes the rook or mates
+        ChessGame game = Fen.parse("8/8/8/2k5/8/3r4/7Q/K7 w - - 0 1");
+        TablebaseResult result = tablebase.probe(game);
+        Assertions.assertEquals(TablebaseResult.Outcome.WIN, result.getOutcome());
+        while (result.getDtz() > 1) {
+            game.doMove(tablebase.bestMove(game));
+            TablebaseResult next = tablebase.probe(game);
+            Assertions.assertNotEquals(result.getOutcome(), next.getOutcome());
+            Assertions.assertEquals(result.getDtz() - 1, next.getDtz());
+            result = next;
+        }
+        int last = tablebase.bestMove(game);
+        game.doMove(last);
+        Assertions.assertTrue(Move.is(last, Move.CAPTURE) || game.isInCheckmate(game.getTeamTurn()),
+                "The win ended with " + Move.toUci(last));
+    }
+
+    @Test
+    @DisplayName("Results Agree With Moves")
+    public void resultsAgreeWithMoves() {
+        // Every stored result must follow from the results after each move
+        Random random = new Random(11);
+        for (String material : List.of("KRk", "KPk", "KQkr")) {
+            int checked = 0;
+            while (checked < 300) {
+                ChessGame game = randomPosition(random, material);
+                if (game != null) {
+                    assertAgreesWithMoves(game);
+                    checked++;
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Turned And Mirrored Boards")
+    public void symmetry() {
+        Random random = new Random(5);
+        for (String material : List.of("KQkr", "KPk")) {
+            boolean pawns = material.contains("P");
+            for (int checked = 0; checked < 200; ) {
+                char[] board = randomBoard(random, material);
+                ChessGame game = toGame(board, random.nextBoolean());
+                if (game == null) {
+                    continue;
+                }
+                TablebaseResult result = tablebase.probe(game);
+                Assertions.assertNotNull(result, Fen.toFen(game));
+                String turn = Fen.toFen(game).split(" ")[1];
+                // Mirrored left to right, and without pawns also top to bottom and across the diagonal
+                int[] masks = pawns ? new int[]{7} : new int[]{7, 56, 63};
+                for (int mask : masks) {
+                    char[] moved = new char[64];
+                    for (int square = 0; square < 64; square++) {
+                        moved[square ^ mask] = board[square];
+                    }
+                    Assertions.assertEquals(result, tablebase.probe(toGame(moved, turn.equals("w"))), Fen.toFen(game));
+                }
+                if (!pawns) {
+                    char[] moved = new char[64];
+                    for (int square = 0; square < 64; square++) {
+                        moved[((square & 7) << 3) | (square >>> 3)] = board[square];
+                    }
+                    Assertions.assertEquals(result, tablebase.probe(toGame(moved, turn.equals("w"))), Fen.toFen(game));
+                }
+                checked++;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Checkmate In One")
+    public void mateInOne() {
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/7Q/8 w - - 0 1");
+        Assertions.assertEquals(new TablebaseResult(TablebaseResult.Outcome.WIN, 1), tablebase.probe(game));
+
+        int move = tablebase.bestMove(game);
+        game.doMove(move);
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK), "Best move " + Move.toUci(move) + " did not mate");
+        Assertions.assertEquals(new TablebaseResult(TablebaseResult.Outcome.LOSS, 0), tablebase.probe(game));
+    }
+
+    @Test
+    @DisplayName("Win Loss And Draw")
+    public void outcomes() {
+        Assertions.assertEquals(TablebaseResult.Outcome.WIN,
+                tablebase.probe(Fen.parse("8/8/3k4/8/8/8/8/R3K3 w - - 0 1")).getOutcome());
+        Assertions.assertEquals(TablebaseResult.Outcome.LOSS,
+                tablebase.probe(Fen.parse("8/8/3k4/8/8/8/8/R3K3 b - - 0 1")).getOutcome());
+        // BLACK takes the undefended queen
+        Assertions.assertEquals(new TablebaseResult(TablebaseResult.Outcome.DRAW, 0),
+                tablebase.probe(Fen.parse("8/8/8/8/4K3/8/Qk6/8 b - - 0 1")));
+        Assertions.assertEquals(TablebaseResult.Outcome.DRAW,
+                tablebase.probe(Fen.parse("8/8/8/3k4/8/8/8/3BK3 w - - 0 1")).getOutcome());
+    }
+
+    @Test
+    @DisplayName("King And Pawn")
+    public void kingAndPawn() {
+        // The king on the sixth row in front of its pawn wins whoever is to move
+        Assertions.assertEquals(TablebaseResult.Outcome.WIN,
+                tablebase.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")).getOutcome());
+        Assertions.assertEquals(TablebaseResult.Outcome.LOSS,
+                tablebase.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")).getOutcome());
+        Assertions.assertEquals(new TablebaseResult(TablebaseResult.Outcome.DRAW, 0),
+                tablebase.probe(Fen.parse("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")), "Stalemate");
+        Assertions.assertEquals(TablebaseResult.Outcome.DRAW,
+                tablebase.probe(Fen.parse("k7/8/8/8/8/8/P7/6K1 b - - 0 1")).getOutcome(),
+                "The rook pawn should draw with the king in the corner");
+    }
+
+    @Test
+    @DisplayName("Colors Swapped")
+    public void colorsSwapped() {
+        TablebaseResult white = tablebase.probe(Fen.parse("8/8/8/2K5/8/8/8/k6Q b - - 0 1"));
+        TablebaseResult black = tablebase.probe(Fen.parse("K6q/8/8/8/2k5/8/8/8 w - - 0 1"));
+        Assertions.assertNotNull(white);
+        Assertions.assertEquals(white, black);
+    }
+
+    @Test
+    @DisplayName("Best Moves Count Down")
+    public void bestMovesCountDown() {
+        // Following the best moves, each win and loss has one less ply to go than the last
+        ChessGame game = Fen.parse("8/8/3k4/8/8/8/8/R3K3 w - - 0 1");
+        TablebaseResult result = tablebase.probe(game);
+        int dtz = result.getDtz();
+        Assertions.assertTrue(dtz > 10, "Expected a long win, DTZ was " + dtz);
+        while (dtz > 0) {
+            game.doMove(tablebase.bestMove(game));
+            TablebaseResult next = tablebase.probe(game);
+            Assertions.assertNotEquals(result.getOutcome(), next.getOutcome());
+            Assertions.assertEquals(dtz - 1, next.getDtz());
+            result = next;
+            dtz = next.getDtz();
+        }
+        Assertions.assertTrue(game.isInCheckmate(game.getTeamTurn()));
+    }
+
+    @Test
+    @DisplayName("Positions Not Covered")
+    public void notCovered() {
+        Assertions.assertNull(tablebase.probe(new ChessGame()), "Too many pieces");
+        Assertions.assertNull(tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")), "Castling rights");
+        Assertions.assertNull(tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/RR2K3 w - - 0 1")), "No table");
+        Assertions.assertEquals(Move.NONE, tablebase.bestMove(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Concurrent Probes")
+    public void concurrentProbes() throws Exception {
+        Tablebase shared = new Tablebase(folder);
+        List<Callable<List<TablebaseResult>>> tasks = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            tasks.add(() -> {
+                List<TablebaseResult> results = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    for (String fen : POSITIONS) {
+                        results.add(shared.probe(Fen.parse(fen)));
+                    }
+                }
+                return results.subList(0, POSITIONS.length);
+            });
+        }
+
+        List<TablebaseResult> expected = new ArrayList<>();
+        for (String fen : POSITIONS) {
+            expected.add(tablebase.probe(Fen.parse(fen)));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (Future<List<TablebaseResult>> results : pool.invokeAll(tasks)) {
+                Assertions.assertEquals(expected, results.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void assertAgreesWithMoves(ChessGame game) {
+        TablebaseResult result = tablebase.probe(game);
+        Assertions.assertNotNull(result, Fen.toFen(game));
+        MoveList moves = new MoveList();
+        int count = game.legalMoves(moves);
+
+        TablebaseResult.Outcome best = TablebaseResult.Outcome.LOSS;
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves.get(i);
+            boolean zeroing = Move.is(move, Move.CAPTURE) || Move.promotion(move) != null
+                    || game.getBoard().getPiece(Move.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+            game.doMove(move);
+            TablebaseResult after = tablebase.probe(game);
+            game.undoMove();
+            Assertions.assertNotNull(after, "No result after " + Move.toUci(move) + " in " + Fen.toFen(game));
+            int distance = zeroing ? 1 : after.getDtz() + 1;
+            switch (after.getOutcome()) {
+                case LOSS -> {
+                    best = TablebaseResult.Outcome.WIN;
+                    fastestWin = Math.min(fastestWin, distance);
+                }
+                case DRAW -> {
+                    if (best == TablebaseResult.Outcome.LOSS) {
+                        best = TablebaseResult.Outcome.DRAW;
+                    }
+                }
+                case WIN -> slowestLoss = Math.max(slowestLoss, distance);
+            }
+        }
+
+        TablebaseResult expected;
+        if (count == 0) {
+            expected = game.isInCheck(game.getTeamTurn())
+                    ? new TablebaseResult(TablebaseResult.Outcome.LOSS, 0)
+                    : new TablebaseResult(TablebaseResult.Outcome.DRAW, 0);
+        } else {
+            expected = switch (best) {
+                case WIN -> new TablebaseResult(TablebaseResult.Outcome.WIN, fastestWin);
+                case DRAW -> new TablebaseResult(TablebaseResult.Outcome.DRAW, 0);
+                case LOSS -> new TablebaseResult(TablebaseResult.Outcome.LOSS, slowestLoss);
+            };
+        }
+        Assertions.assertEquals(expected, result, Fen.toFen(game));
+    }
+
+    /**
+     * @param material the pieces to place, upper case for WHITE and lower case for BLACK
+     * @return a legal position with the pieces on random squares, or null if the one
+     * picked is not legal
+     */
+    private static ChessGame randomPosition(Random random, String material) {
+        return toGame(randomBoard(random, material), random.nextBoolean());
+    }
+
+    private static char[] randomBoard(Random random, String material) {
+        char[] board = new char[64];
+        for (char piece : material.toCharArray()) {
+            int square;
+            do {
+                square = random.nextInt(64);
+            } while (board[square] != 0);
+            board[square] = piece;
+        }
+        return board;
+    }
+
+    /**
+     * @return the game for a board of FEN letters indexed by square, or null if the
+     * position is not legal
+     */
+    private static ChessGame toGame(char[] board, boolean whiteToMove) {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                char piece = board[row * 8 + column];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if ((piece == 'P' || piece == 'p') && (row == 0 || row == 7)) {
+                    return null;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(piece);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(whiteToMove ? " w - - 0 1" : " b - - 0 1");
+        ChessGame game = Fen.parse(fen.toString());
+        ChessGame.TeamColor waiting = whiteToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int white = game.getBoard().getKingSquare(ChessGame.TeamColor.WHITE);
+        int black = game.getBoard().getKingSquare(ChessGame.TeamColor.BLACK);
+        boolean kingsTouch = Math.abs((white & 7) - (black & 7)) <= 1 && Math.abs((white >>> 3) - (black >>> 3)) <= 1;
+        return (kingsTouch || game.isInCheck(waiting)) ? null : game;
+    }
+
+    @Test
+    @DisplayName("Every Legal Move Is Scored")
+    public void everyMoveScored() {
+        ChessGame game = Fen.parse("8/8/8/3k4/8/8/4P3/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        int count = game.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves.get(i));
+            Assertions.assertNotNull(tablebase.probe(game), "No result after " + Move.toUci(moves.get(i)));
+            game.undoMove();
+        }
+    }
+}
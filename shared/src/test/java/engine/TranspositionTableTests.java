@@ -0,0 +1,111 @@
+package engine;
+
+import chess.Fen;
+import chess.Move;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Size Rounds Down")
+    public void sizeRoundsDown() {
+        Assertions.assertEquals(1 << 16, TranspositionTable.capacity(1));
+        Assertions.assertEquals(1 << 17, TranspositionTable.capacity(3));
+        Assertions.assertEquals(1 << 29, TranspositionTable.capacity(8192));
+        // Past 8 GB the longs would not fit in one array, so the table stops growing
+        Assertions.assertEquals(1 << 29, TranspositionTable.capacity(16384));
+        Assertions.assertEquals(1 << 29, TranspositionTable.capacity(Integer.MAX_VALUE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TranspositionTable.capacity(0));
+    }
+
+    @Test
+    @DisplayName("Store And Probe")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(12, 28, null, Move.DOUBLE_PUSH);
+        table.store(0x123456789ABCDEFL, move, -42, 7, TranspositionTable.LOWER, 3);
+
+        long data = table.probe(0x123456789ABCDEFL);
+        Assertions.assertNotEquals(0, data);
+        Assertions.assertEquals(move, TranspositionTable.move(data));
+        Assertions.assertEquals(-42, TranspositionTable.score(data, 3));
+        Assertions.assertEquals(7, TranspositionTable.depth(data));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+
+        Assertions.assertEquals(0, table.probe(0x123456789ABCDEEL), "Found an entry for a different key");
+        table.clear();
+        Assertions.assertEquals(0, table.probe(0x123456789ABCDEFL), "Clear left an entry");
+    }
+
+    @Test
+    @DisplayName("Mate Scores Are Relative To The Position")
+    public void mateScores() {
+        TranspositionTable table = new TranspositionTable(1);
+        // Mate in 5 plies from the root, seen at ply 2, is mate in 3 from the position itself
+        table.store(99, Move.NONE, Search.MATE - 5, 4, TranspositionTable.EXACT, 2);
+        long data = table.probe(99);
+
+        Assertions.assertEquals(Search.MATE - 5, TranspositionTable.score(data, 2));
+        Assertions.assertEquals(Search.MATE - 4, TranspositionTable.score(data, 1));
+    }
+
+    @Test
+    @DisplayName("Keeps Move When Storing Without One")
+    public void keepsMove() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(1, 18, null, 0);
+        table.store(5, move, 10, 3, TranspositionTable.EXACT, 0);
+        table.store(5, Move.NONE, -10, 4, TranspositionTable.UPPER, 0);
+
+        Assertions.assertEquals(move, TranspositionTable.move(table.probe(5)));
+    }
+
+    @Test
+    @DisplayName("Entries Never Mix Under Concurrent Writes")
+    public void concurrentWrites() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicReference<String> problem = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int depth = t + 1;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200_000 && problem.get() == null; i++) {
+                    // Keys that all land in the same few buckets
+                    long key = ((long) (i & 7) << 40) | depth;
+                    table.store(key, depth, depth, depth, TranspositionTable.EXACT, 0);
+                    long data = table.probe(key);
+                    if (data != 0 && (TranspositionTable.move(data) != TranspositionTable.depth(data)
+                            || TranspositionTable.score(data, 0) != TranspositionTable.depth(data))) {
+                        problem.set("Torn entry for key " + key);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(problem.get());
+    }
+
+    @Test
+    @DisplayName("Table Saves Search Work")
+    public void tableSavesWork() {
+        TranspositionTable table = new TranspositionTable(16);
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        SearchResult first = new Search(table).search(Fen.parse(fen), SearchLimits.depth(5));
+        Assertions.assertTrue(table.hashfull() > 0, "Search did not fill the table");
+        SearchResult second = new Search(table).search(Fen.parse(fen), SearchLimits.depth(5));
+
+        Assertions.assertTrue(second.getNodes() < first.getNodes() / 2,
+                "Second search visited " + second.getNodes() + " nodes, first " + first.getNodes());
+    }
+}
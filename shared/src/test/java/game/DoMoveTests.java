@@ -0,0 +1,117 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DoMoveTests {
+
+    @Test
+    @DisplayName("Quiet Move")
+    public void quietMove() {
+        assertRoundTrip("4k3/8/8/8/8/8/8/4K3 b - - 7 12", "e8d7",
+                "8/3k4/8/8/8/8/8/4K3 w - - 8 13");
+    }
+
+    @Test
+    @DisplayName("Capture")
+    public void capture() {
+        assertRoundTrip("4k3/8/8/3p4/4P3/8/8/4K3 w - - 5 20", "e4d5",
+                "4k3/8/8/3P4/8/8/8/4K3 b - - 0 20");
+    }
+
+    @Test
+    @DisplayName("Capture Of A Rook Removes Castling")
+    public void rookCapture() {
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "a1a8",
+                "R3k2r/8/8/8/8/8/8/4K2R b Kk - 0 1");
+    }
+
+    @Test
+    @DisplayName("Promotion With Capture")
+    public void promotion() {
+        assertRoundTrip("1r2k3/P7/8/8/8/8/8/4K3 w - - 3 40", "a7b8q",
+                "1Q2k3/8/8/8/8/8/8/4K3 b - - 0 40");
+    }
+
+    @Test
+    @DisplayName("Castle Kingside")
+    public void castleKingside() {
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 2 10", "e1g1",
+                "r3k2r/8/8/8/8/8/8/R4RK1 b kq - 3 10");
+    }
+
+    @Test
+    @DisplayName("Castle Queenside")
+    public void castleQueenside() {
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 2 10", "e8c8",
+                "2kr3r/8/8/8/8/8/8/R3K2R w KQ - 3 11");
+    }
+
+    @Test
+    @DisplayName("Double Push Sets En Passant")
+    public void doublePush() {
+        assertRoundTrip("4k3/8/8/8/3p4/8/4P3/4K3 w - - 4 30", "e2e4",
+                "4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 30");
+    }
+
+    @Test
+    @DisplayName("En Passant")
+    public void enPassant() {
+        assertRoundTrip("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 30", "e5d6",
+                "4k3/8/3P4/8/8/8/8/4K3 b - - 0 30");
+    }
+
+    @Test
+    @DisplayName("Undo Many Moves")
+    public void undoMany() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String[] line = {"e1c1", "b4c3", "e5f7", "c3b2", "c1b1", "e8g8", "d5e6", "h3g2"};
+        String[] fens = new String[line.length];
+        long[] keys = new long[line.length];
+
+        for (int i = 0; i < line.length; i++) {
+            fens[i] = Fen.toFen(game);
+            keys[i] = game.zobristKey();
+            game.doMove(find(game, line[i]));
+        }
+        Assertions.assertEquals(line.length, game.getUndoDepth());
+
+        for (int i = line.length - 1; i >= 0; i--) {
+            game.undoMove();
+            Assertions.assertEquals(fens[i], Fen.toFen(game), "Wrong position after undoing " + line[i]);
+            Assertions.assertEquals(keys[i], game.zobristKey(), "Wrong key after undoing " + line[i]);
+        }
+        Assertions.assertEquals(0, game.getUndoDepth());
+        Assertions.assertThrows(IllegalStateException.class, game::undoMove);
+    }
+
+    private static void assertRoundTrip(String fen, String uci, String expected) {
+        ChessGame game = Fen.parse(fen);
+        long key = game.zobristKey();
+        int halfmoveClock = game.getHalfmoveClock();
+        int fullmoveNumber = game.getFullmoveNumber();
+
+        game.doMove(find(game, uci));
+        Assertions.assertEquals(expected, Fen.toFen(game), "Wrong position after " + uci);
+        Assertions.assertEquals(Fen.parse(expected).zobristKey(), game.zobristKey(), "Wrong key after " + uci);
+
+        game.undoMove();
+        Assertions.assertEquals(fen, Fen.toFen(game), "Wrong position after undoing " + uci);
+        Assertions.assertEquals(key, game.zobristKey(), "Wrong key after undoing " + uci);
+        Assertions.assertEquals(halfmoveClock, game.getHalfmoveClock());
+        Assertions.assertEquals(fullmoveNumber, game.getFullmoveNumber());
+    }
+
+    private static int find(ChessGame game, String uci) {
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toUci(moves.get(i)).equals(uci)) {
+                return moves.get(i);
+            }
+        }
+        throw new AssertionError(uci + " is not legal in " + Fen.toFen(game));
+    }
+}
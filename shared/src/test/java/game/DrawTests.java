@@ -0,0 +1,117 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawTests {
+
+    private static final ChessMove[] KNIGHT_SHUFFLE = {
+            new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+            new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+            new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+            new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null),
+    };
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : KNIGHT_SHUFFLE) {
+            game.makeMove(move);
+        }
+        Assertions.assertEquals(2, game.repetitions());
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus());
+
+        for (ChessMove move : KNIGHT_SHUFFLE) {
+            game.makeMove(move);
+        }
+        Assertions.assertEquals(3, game.repetitions());
+        Assertions.assertEquals(GameStatus.REPETITION, game.getStatus());
+        Assertions.assertTrue(game.getStatus().isDraw());
+        Assertions.assertEquals(GameStatus.REPETITION, game.snapshot().getStatus());
+
+        game.undoMove();
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus(), "Undo did not clear the repetition");
+    }
+
+    @Test
+    @DisplayName("Game From Snapshot Has No Repetitions")
+    public void snapshotForgetsRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            for (ChessMove move : KNIGHT_SHUFFLE) {
+                game.makeMove(move);
+            }
+        }
+        GameSnapshot snapshot = game.snapshot();
+        Assertions.assertEquals(GameStatus.REPETITION, snapshot.getStatus());
+
+        ChessGame copy = snapshot.toGame();
+        Assertions.assertEquals(1, copy.repetitions());
+        Assertions.assertEquals(GameStatus.ONGOING, copy.getStatus(), "Copy has no history to repeat");
+        Assertions.assertEquals(GameStatus.ONGOING, copy.snapshot().getStatus());
+        copy.makeMove(KNIGHT_SHUFFLE[0]);
+        copy.undoMove();
+        Assertions.assertEquals(GameStatus.ONGOING, copy.getStatus());
+    }
+
+    @Test
+    @DisplayName("Repetition Needs Same Castling Rights")
+    public void repetitionNeedsSameRights() throws InvalidMoveException {
+        ChessGame game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessMove[] kingShuffle = {
+                new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 4), null),
+                new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null),
+                new ChessMove(new ChessPosition(1, 4), new ChessPosition(1, 5), null),
+                new ChessMove(new ChessPosition(8, 4), new ChessPosition(8, 5), null),
+        };
+        for (ChessMove move : kingShuffle) {
+            game.makeMove(move);
+        }
+        // The board matches the start, but the kings have lost their castling rights
+        Assertions.assertEquals(1, game.repetitions());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 80");
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus());
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 2), null));
+        Assertions.assertEquals(GameStatus.FIFTY_MOVES, game.getStatus());
+
+        game.undoMove();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null));
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus(), "A pawn move should reset the count");
+    }
+
+    @Test
+    @DisplayName("Checkmate Beats Fifty Move Rule")
+    public void checkmateBeatsFiftyMoves() throws InvalidMoveException {
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/8/7R w - - 99 80");
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(8, 8), null));
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() {
+        assertStatus("4k3/8/8/8/8/8/8/4K3 w - - 0 1", GameStatus.INSUFFICIENT_MATERIAL);
+        assertStatus("4k3/8/8/8/8/8/8/4KN2 w - - 0 1", GameStatus.INSUFFICIENT_MATERIAL);
+        assertStatus("4kb2/8/8/8/8/8/8/4K3 w - - 0 1", GameStatus.INSUFFICIENT_MATERIAL);
+        // Bishops on the same color of square
+        assertStatus("4kb2/8/8/8/8/8/8/2B1K3 w - - 0 1", GameStatus.INSUFFICIENT_MATERIAL);
+
+        // Bishops on different colors, two knights, or any pawn can still mate
+        assertStatus("4kb2/8/8/8/8/8/8/3BK3 w - - 0 1", GameStatus.ONGOING);
+        assertStatus("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1", GameStatus.ONGOING);
+        assertStatus("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", GameStatus.ONGOING);
+    }
+
+    private static void assertStatus(String fen, GameStatus expected) {
+        Assertions.assertEquals(expected, Fen.parse(fen).getStatus(), "Wrong status for " + fen);
+    }
+}
@@ -0,0 +1,53 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() {
+        String[] positions = {
+                Fen.START,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 30",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 12 47",
+        };
+        for (String fen : positions) {
+            Assertions.assertEquals(fen, Fen.toFen(Fen.parse(fen)));
+        }
+    }
+
+    @Test
+    @DisplayName("Pieces Land On Their Squares")
+    public void placement() {
+        ChessBoard board = Fen.parse("7k/8/8/8/8/8/8/K7 w - - 0 1").getBoard();
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                board.getPiece(new ChessPosition(8, 8)));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                board.getPiece(new ChessPosition(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Bad Placement Is Rejected")
+    public void badPlacement() {
+        String[] placements = {
+                "9/8/8/8/8/8/8/4K2k",
+                "p7p/8/8/8/8/8/8/4K2k",
+                "8/8/8/8/8/8/8/4Kk",
+                "7/8/8/8/8/8/8/4K2k",
+                "8/8/8/8/8/8/4K2k",
+                "8/8/8/8/8/8/8/4K2k/8",
+                "8/8/8/8/8/8/8/4K2k/",
+                "45/8/8/8/8/8/8/4K2k",
+                "8/8/8/8/8/8/8/4K2x",
+        };
+        for (String placement : placements) {
+            String fen = placement + " w - - 0 1";
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), fen);
+        }
+    }
+}
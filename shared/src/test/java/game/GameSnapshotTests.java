@@ -0,0 +1,99 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameSnapshotTests {
+
+    @Test
+    @DisplayName("Make Move Publishes Snapshot")
+    public void makeMovePublishesSnapshot() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameSnapshot before = game.snapshot();
+        Assertions.assertEquals(Fen.START, before.toFen(), "Wrong snapshot of a new game");
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameSnapshot after = game.snapshot();
+
+        Assertions.assertEquals(Fen.START, before.toFen(), "Old snapshot changed after a move");
+        Assertions.assertEquals(Fen.toFen(game), after.toFen(), "Snapshot does not match the game");
+        Assertions.assertEquals(game.zobristKey(), after.zobristKey(), "Snapshot has the wrong key");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, after.getTeamTurn(), "Snapshot has the wrong turn");
+    }
+
+    @Test
+    @DisplayName("Snapshot Is Not Changed Through Its Board")
+    public void snapshotBoardIsCopy() {
+        ChessGame game = new ChessGame();
+        GameSnapshot snapshot = game.snapshot();
+
+        ChessBoard board = snapshot.getBoard();
+        board.addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+
+        Assertions.assertNull(snapshot.getPiece(new ChessPosition(4, 4)), "Snapshot changed through its board");
+        Assertions.assertEquals(Fen.START, snapshot.toFen(), "Snapshot changed through its board");
+    }
+
+    @Test
+    @DisplayName("Snapshot To Game")
+    public void snapshotToGame() throws InvalidMoveException {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        GameSnapshot snapshot = game.snapshot();
+
+        ChessGame copy = snapshot.toGame();
+        Assertions.assertEquals(game, copy, "Game from snapshot does not match");
+        Assertions.assertEquals(Fen.toFen(game), Fen.toFen(copy), "Game from snapshot does not match");
+
+        copy.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(3, 8), null));
+        Assertions.assertEquals(snapshot, game.snapshot(), "Moving the copy changed the original");
+        Assertions.assertNotEquals(snapshot, copy.snapshot(), "Copy did not publish its move");
+    }
+
+    @Test
+    @DisplayName("Loaded And Copied Games Have Full Snapshots")
+    public void loadedAndCopied() {
+        String fen = "r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 3 17";
+        ChessGame game = Fen.parse(fen);
+        Assertions.assertEquals(fen, game.snapshot().toFen(), "Snapshot of a loaded game is missing state");
+        Assertions.assertSame(game.snapshot(), game.snapshot(), "Snapshot was taken again without a change");
+
+        game.doMove(game.encodeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null)));
+        ChessGame copy = new ChessGame(game);
+        Assertions.assertEquals(fen, game.snapshot().toFen(), "doMove published a snapshot");
+        Assertions.assertEquals(Fen.toFen(copy), copy.snapshot().toFen(), "Copy does not snapshot its own position");
+    }
+
+    @Test
+    @DisplayName("Readers See Whole Positions")
+    public void concurrentReaders() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessMove[] moves = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null),
+        };
+
+        AtomicReference<String> problem = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 20000 && problem.get() == null; i++) {
+                GameSnapshot snapshot = game.snapshot();
+                ChessGame replay = Fen.parse(snapshot.toFen());
+                if (replay.zobristKey() != snapshot.zobristKey()) {
+                    problem.set("Snapshot key does not match its position: " + snapshot);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            game.makeMove(moves[i % moves.length]);
+        }
+        reader.join();
+
+        Assertions.assertNull(problem.get());
+    }
+}
@@ -0,0 +1,51 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameStatusCacheTests {
+
+    @Test
+    @DisplayName("Status Follows Moves")
+    public void statusFollowsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus());
+
+        // Fool's mate
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus());
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.snapshot().getStatus());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.getStatus().isGameOver());
+
+        game.undoMove();
+        Assertions.assertEquals(GameStatus.ONGOING, game.getStatus(), "Status was not recomputed after undo");
+    }
+
+    @Test
+    @DisplayName("Status Sees Board Changes")
+    public void statusSeesBoardChanges() {
+        ChessGame game = Fen.parse("7k/8/6K1/8/8/8/8/8 b - - 0 1");
+        Assertions.assertEquals(GameStatus.INSUFFICIENT_MATERIAL, game.getStatus());
+
+        game.getBoard().addPiece(new ChessPosition(7, 6),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(GameStatus.STALEMATE, game.getStatus(), "Status was not recomputed after addPiece");
+        Assertions.assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+
+        game.getBoard().addPiece(new ChessPosition(7, 6), null);
+        game.getBoard().addPiece(new ChessPosition(8, 1),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(GameStatus.CHECKMATE, game.getStatus());
+
+        game.getBoard().addPiece(new ChessPosition(6, 7), null);
+        Assertions.assertEquals(GameStatus.CHECK, game.getStatus());
+    }
+}
@@ -0,0 +1,82 @@
+package game;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Compares leaf node counts of the legal move tree against the published perft results
+ * for standard test positions (see https://www.chessprogramming.org/Perft_Results).
+ */
+public class PerftTests {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String POSITION_6 =
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @Test
+    @DisplayName("Perft Starting Position")
+    public void startingPosition() {
+        assertPerft(Fen.START, 20, 400, 8902, 197281, 4865609);
+    }
+
+    @Test
+    @DisplayName("Perft Kiwipete")
+    public void kiwipete() {
+        assertPerft(KIWIPETE, 48, 2039, 97862, 4085603);
+    }
+
+    @Test
+    @DisplayName("Perft Position 3")
+    public void position3() {
+        assertPerft(POSITION_3, 14, 191, 2812, 43238, 674624);
+    }
+
+    @Test
+    @DisplayName("Perft Position 4")
+    public void position4() {
+        assertPerft(POSITION_4, 6, 264, 9467, 422333);
+    }
+
+    @Test
+    @DisplayName("Perft Position 5")
+    public void position5() {
+        assertPerft(POSITION_5, 44, 1486, 62379);
+    }
+
+    @Test
+    @DisplayName("Perft Position 6")
+    public void position6() {
+        assertPerft(POSITION_6, 46, 2079, 89890);
+    }
+
+    @Test
+    @DisplayName("Perft Divide Matches Total")
+    public void divideMatchesTotal() {
+        ChessGame game = Fen.parse(Fen.START);
+        Map<String, Long> divide = Perft.divide(game, 3, 4);
+
+        Assertions.assertEquals(20, divide.size(), "Wrong number of root moves");
+        Assertions.assertEquals(600, divide.get("e2e4"), "Wrong count below e2e4");
+        Assertions.assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum(),
+                "Divide counts did not add up to the perft total");
+        Assertions.assertEquals(Fen.START, Fen.toFen(game), "Divide changed the game");
+    }
+
+    private static void assertPerft(String fen, long... expected) {
+        ChessGame game = Fen.parse(fen);
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], Perft.perft(game, depth), "Wrong perft at depth " + depth);
+        }
+        Assertions.assertEquals(fen, Fen.toFen(game), "Perft changed the game");
+    }
+}
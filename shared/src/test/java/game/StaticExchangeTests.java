@@ -0,0 +1,91 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class StaticExchangeTests {
+
+    @Test
+    @DisplayName("Undefended Piece Is Won")
+    public void undefendedPiece() {
+        Assertions.assertEquals(100, see("4k3/8/8/4p3/8/8/8/4RK2 w - - 0 1", "e1", "e5", null));
+    }
+
+    @Test
+    @DisplayName("Defended Pawn Costs The Rook")
+    public void defendedPawn() {
+        Assertions.assertEquals(-400, see("4k3/8/3p4/4p3/8/8/8/4RK2 w - - 0 1", "e1", "e5", null));
+    }
+
+    @Test
+    @DisplayName("Rook Behind Joins The Exchange")
+    public void xRay() {
+        // Rxe5 Nxe5 Rxe5: the rook on e1 only sees e5 once the other rook has left e2
+        Assertions.assertEquals(-80, see("4k3/8/2n5/4p3/8/8/4R3/4RK2 w - - 0 1", "e2", "e5", null));
+    }
+
+    @Test
+    @DisplayName("Defender Stops When Recapturing Loses")
+    public void defenderStops() {
+        // Recapturing would only trade rooks, so BLACK is simply a knight down
+        Assertions.assertEquals(320, see("4r1k1/8/8/4n3/8/8/4R3/4RK2 w - - 0 1", "e2", "e5", null));
+    }
+
+    @Test
+    @DisplayName("King Can't Take A Defended Piece")
+    public void kingRecapture() {
+        Assertions.assertEquals(100, see("4k3/5p2/8/8/2B5/5Q2/8/4K3 w - - 0 1", "f3", "f7", null));
+        Assertions.assertEquals(-800, see("4k3/5p2/8/8/8/5Q2/8/4K3 w - - 0 1", "f3", "f7", null));
+    }
+
+    @Test
+    @DisplayName("En Passant And Promotion")
+    public void specialMoves() {
+        Assertions.assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5", "d6", null));
+        Assertions.assertEquals(800, see("7k/4P3/8/8/8/8/8/4K3 w - - 0 1", "e7", "e8", ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(-100, see("r7/4P2k/8/8/8/8/8/4K3 w - - 0 1", "e7", "e8", ChessPiece.PieceType.QUEEN));
+    }
+
+    @Test
+    @DisplayName("Quiet Move Onto Attacked Square")
+    public void quietMove() {
+        Assertions.assertEquals(-320, see("4k3/8/8/3p4/8/8/1N6/4K3 w - - 0 1", "b2", "c4", null));
+        Assertions.assertEquals(0, see("4k3/8/8/3p4/8/8/1N6/4K3 w - - 0 1", "b2", "d3", null));
+    }
+
+    @Test
+    @DisplayName("Hanging Pieces")
+    public void hangingPieces() {
+        // The knight on d4 is defended but a pawn can take it, the rook on a5 is undefended
+        // and the pawns on e5 and h5 are defended by the rook and the knight on g7
+        ChessGame game = Fen.parse("4k3/6n1/8/r3p2p/3n4/4P3/7Q/RK6 w - - 0 1");
+        long hanging = game.getBoard().hangingPieces(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(Bitboard.bit(Fen.parseSquare("d4")) | Bitboard.bit(Fen.parseSquare("a5")), hanging);
+        Assertions.assertEquals(0L, game.getBoard().hangingPieces(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Exchange Leaves Board Unchanged")
+    public void boardUnchanged() {
+        ChessGame game = Fen.parse("4k3/8/2n5/4p3/8/8/4R3/4RK2 w - - 0 1");
+        String before = Fen.toFen(game);
+        game.getBoard().hangingPieces(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(before, Fen.toFen(game));
+    }
+
+    private static int see(String fen, String from, String to, ChessPiece.PieceType promotion) {
+        ChessGame game = Fen.parse(fen);
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.from(move) == Fen.parseSquare(from) && Move.to(move) == Fen.parseSquare(to)
+                    && Move.promotion(move) == promotion) {
+                return game.getBoard().see(move);
+            }
+        }
+        throw new AssertionError("No legal move " + from + to + " in " + fen);
+    }
+}
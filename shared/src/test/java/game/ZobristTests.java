@@ -0,0 +1,85 @@
+package game;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ZobristTests {
+
+    private static final String[] POSITIONS = {
+            Fen.START,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+    };
+
+    @Test
+    @DisplayName("Incremental Keys Match A Fresh Board")
+    public void incrementalMatchesFresh() {
+        Random random = new Random(7);
+        MoveList moves = new MoveList();
+        for (String fen : POSITIONS) {
+            ChessGame game = Fen.parse(fen);
+            for (int ply = 0; ply < 200; ply++) {
+                moves.clear();
+                if (game.legalMoves(moves) == 0) {
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+                assertKeys(game);
+            }
+            while (game.getUndoDepth() > 0) {
+                game.undoMove();
+                assertKeys(game);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Keys Follow The Whole Position")
+    public void keysFollowState() {
+        ChessGame white = Fen.parse("r3k2r/8/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        Assertions.assertNotEquals(white.zobristKey(),
+                Fen.parse("r3k2r/8/8/3pP3/8/8/8/R3K2R b KQkq - 0 1").zobristKey(), "Turn not in the key");
+        Assertions.assertNotEquals(white.zobristKey(),
+                Fen.parse("r3k2r/8/8/3pP3/8/8/8/R3K2R w Kkq d6 0 1").zobristKey(), "Castling not in the key");
+        Assertions.assertNotEquals(white.zobristKey(),
+                Fen.parse("r3k2r/8/8/3pP3/8/8/8/R3K2R w KQkq - 0 1").zobristKey(), "En passant not in the key");
+        Assertions.assertEquals(white.zobristKey(),
+                Fen.parse("r3k2r/8/8/3pP3/8/8/8/R3K2R w KQkq d6 40 60").zobristKey(), "Clocks changed the key");
+    }
+
+    @Test
+    @DisplayName("Pawn Key Ignores Other Pieces")
+    public void pawnKey() {
+        ChessBoard board = Fen.parse("4k3/pp6/8/8/8/8/PP6/4K3 w - - 0 1").getBoard();
+        ChessBoard withKnight = Fen.parse("4k3/pp6/8/8/3N4/8/PP6/4K3 w - - 0 1").getBoard();
+        Assertions.assertEquals(board.pawnKey(), withKnight.pawnKey());
+        Assertions.assertNotEquals(board.zobristKey(), withKnight.zobristKey());
+        Assertions.assertEquals(0, Fen.parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1").getBoard().pawnKey());
+    }
+
+    private static void assertKeys(ChessGame game) {
+        String fen = Fen.toFen(game);
+        ChessGame fresh = Fen.parse(fen);
+        Assertions.assertEquals(fresh.zobristKey(), game.zobristKey(), "Game key drifted at " + fen);
+        Assertions.assertEquals(fresh.getBoard().pawnKey(), game.getBoard().pawnKey(), "Pawn key drifted at " + fen);
+
+        long key = 0;
+        long pawnKey = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = game.getBoard().getPiece(square);
+            if (piece != null) {
+                key ^= Zobrist.piece(piece, square);
+                if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                    pawnKey ^= Zobrist.piece(piece, square);
+                }
+            }
+        }
+        Assertions.assertEquals(key, game.getBoard().zobristKey(), "Board key drifted at " + fen);
+        Assertions.assertEquals(pawnKey, game.getBoard().pawnKey(), "Pawn key drifted at " + fen);
+    }
+}